@@ -0,0 +1,65 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * TCP proxy that delays every chunk coming back from the upstream by a fixed time, to simulate
+ * a database behind a slow pooler. Each query round trip gets roughly one delay added.
+ * <p>
+ * Usage: java LatencyProxy.java <listenPort> <upstreamHost> <upstreamPort> <delayMs>
+ */
+public class LatencyProxy {
+    
+    public static void main(String[] args) throws IOException {
+        int listenPort = Integer.parseInt(args[0]);
+        String upstreamHost = args[1];
+        int upstreamPort = Integer.parseInt(args[2]);
+        long delayMs = Long.parseLong(args[3]);
+        
+        try (ServerSocket server = new ServerSocket()) {
+            server.bind(new InetSocketAddress("127.0.0.1", listenPort));
+            System.out.println("Proxying :" + listenPort + " -> " + upstreamHost + ":" + upstreamPort + " with " + delayMs + " ms");
+            while (true) {
+                Socket client = server.accept();
+                Socket upstream = new Socket(upstreamHost, upstreamPort);
+                client.setTcpNoDelay(true);
+                upstream.setTcpNoDelay(true);
+                pipe(client, upstream, 0);
+                pipe(upstream, client, delayMs);
+            }
+        }
+    }
+    
+    private static void pipe(Socket from, Socket to, long delayMs) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[16384];
+            try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (delayMs > 0) {
+                        Thread.sleep(delayMs);
+                    }
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // Connection closed
+            } finally {
+                close(from);
+                close(to);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
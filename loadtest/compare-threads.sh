@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Throughput and p99 of GET /api/progress with platform threads vs. the "virtual" profile,
+# against a database slowed down by LatencyProxy.
+#
+#   DB_HOST=localhost DB_PORT=5432 DB_NAME=postgres DB_USER=postgres DB_PASSWORD=... \
+#   JAVA21_HOME=/path/to/jdk-21 ./loadtest/compare-threads.sh
+#
+# Without JAVA21_HOME only the platform-thread mode and the limiter on platform threads are measured.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+DB_HOST=${DB_HOST:-localhost}
+DB_PORT=${DB_PORT:-5432}
+DB_NAME=${DB_NAME:-postgres}
+DB_USER=${DB_USER:-postgres}
+DB_PASSWORD=${DB_PASSWORD:-}
+DELAY_MS=${DELAY_MS:-20}
+CLIENTS=${CLIENTS:-"50 200 400"}
+SECONDS_PER_RUN=${SECONDS_PER_RUN:-20}
+APP_USER=${APP_USER:-admin}
+APP_PASSWORD=${APP_PASSWORD:-password123}
+PROXY_PORT=15432
+APP_PORT=18080
+URL="http://localhost:$APP_PORT/api/progress"
+
+java loadtest/LatencyProxy.java $PROXY_PORT "$DB_HOST" "$DB_PORT" "$DELAY_MS" &
+PROXY_PID=$!
+APP_PID=
+trap 'kill $PROXY_PID ${APP_PID:-} 2>/dev/null || true' EXIT
+sleep 3
+
+run_mode() {
+    local label=$1 java=$2 jar=$3 profiles=$4
+    "$java" -jar "$jar" --server.port=$APP_PORT --spring.profiles.active="$profiles" \
+        --spring.datasource.url="jdbc:postgresql://localhost:$PROXY_PORT/$DB_NAME" \
+        --spring.datasource.username="$DB_USER" --spring.datasource.password="$DB_PASSWORD" \
+        --app.rate-limit.enabled=false > "loadtest/app-$label.log" 2>&1 &
+    APP_PID=$!
+    until grep -q "Started VocabAppApplication" "loadtest/app-$label.log"; do
+        kill -0 $APP_PID 2>/dev/null || { echo "$label: app failed to start, see loadtest/app-$label.log"; exit 1; }
+        sleep 1
+    done
+    local token
+    token=$(curl -s -X POST "http://localhost:$APP_PORT/api/auth/login" -H 'Content-Type: application/json' \
+        -d "{\"usernameOrEmail\":\"$APP_USER\",\"password\":\"$APP_PASSWORD\"}" | sed 's/.*"token":"\([^"]*\)".*/\1/')
+    # Warm-up, not reported
+    java loadtest/LoadTest.java "$URL" "$token" 20 5 > /dev/null
+    for clients in $CLIENTS; do
+        echo "$label $(java loadtest/LoadTest.java "$URL" "$token" "$clients" "$SECONDS_PER_RUN")"
+    done
+    kill $APP_PID
+    wait $APP_PID 2>/dev/null || true
+    APP_PID=
+}
+
+mvn -B -q clean package -DskipTests
+cp target/vocab-backend-1.0.0.jar target/vocab-backend-platform.jar
+run_mode platform java target/vocab-backend-platform.jar default
+# Limiter and Hikari settings of the virtual profile, still on platform threads when run on JDK 17
+run_mode limiter java target/vocab-backend-platform.jar virtual
+
+if [ -n "${JAVA21_HOME:-}" ]; then
+    JAVA_HOME=$JAVA21_HOME mvn -B -q -P virtual-threads clean package -DskipTests
+    run_mode virtual "$JAVA21_HOME/bin/java" target/vocab-backend-1.0.0.jar virtual
+fi
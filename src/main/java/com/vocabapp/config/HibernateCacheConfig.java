@@ -0,0 +1,69 @@
+package com.vocabapp.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.vocabapp.model.Collection;
+import com.vocabapp.model.User;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Regions of the Hibernate second-level cache. Each cached entity gets its own bounded Caffeine
+ * region; Hibernate is set to fail on startup if it asks for a region that is not declared here.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    
+    // Hibernate's built-in region names for the query cache
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+    
+    @Value("${app.cache.ttl:PT30M}")
+    private Duration ttl;
+    
+    @Value("${app.cache.collection.max-size:10000}")
+    private long collectionMaxSize;
+    
+    @Value("${app.cache.user.max-size:10000}")
+    private long userMaxSize;
+    
+    @Value("${app.cache.query.max-size:1000}")
+    private long queryMaxSize;
+    
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        createRegion(cacheManager, Collection.class.getName(), collectionMaxSize, ttl);
+        createRegion(cacheManager, User.class.getName(), userMaxSize, ttl);
+        createRegion(cacheManager, QUERY_RESULTS_REGION, queryMaxSize, ttl);
+        // Timestamps decide whether a cached query result is stale, so they must never be evicted
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, 0, null);
+        return cacheManager;
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+    
+    // maxSize 0 means unbounded; a null ttl means entries never expire
+    private static void createRegion(CacheManager cacheManager, String name, long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maxSize > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -1,6 +1,8 @@
 package com.vocabapp.config;
 
 import com.vocabapp.service.JwtService;
+import com.vocabapp.service.PrincipalCache;
+import com.vocabapp.service.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
     
     @Override
     protected void doFilterInternal(
@@ -32,7 +35,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
         
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -40,12 +42,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         
         jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        // Signature and expiry are checked once here; an invalid token leaves the request unauthenticated
+        final VerifiedToken token = jwtService.verify(jwt).orElse(null);
         
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (token != null && token.username() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(token);
             
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -59,4 +62,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+    
+    private UserDetails resolvePrincipal(VerifiedToken token) {
+        if (token.userId() == null || token.tokenVersion() == null) {
+            // Token issued before the id/version claims existed
+            UserDetails userDetails = userDetailsService.loadUserByUsername(token.username());
+            return userDetails.getUsername().equals(token.username()) ? userDetails : null;
+        }
+        return principalCache.get(token.userId())
+                .filter(user -> user.getUsername().equals(token.username()))
+                .filter(user -> user.getTokenVersion().equals(token.tokenVersion()))
+                .orElse(null);
+    }
 }
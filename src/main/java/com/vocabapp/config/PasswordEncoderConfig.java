@@ -1,15 +1,49 @@
 package com.vocabapp.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class PasswordEncoderConfig {
     
+    // BCrypt work factor; raising it rehashes each user's password on their next login
+    @Value("${app.security.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    // 0 means half the available cores
+    @Value("${app.security.hashing.threads:0}")
+    private int hashingThreads;
+    
+    @Value("${app.security.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+    
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor() {
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashingQueueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ExecutorService passwordHashingExecutor, MeterRegistry meterRegistry) {
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, passwordHashingExecutor, "password.hashing");
+        Counter rejected = Counter.builder("password.hashing.rejected")
+                .description("Password hashing calls rejected because the bulkhead was full")
+                .register(meterRegistry);
+        return new BulkheadPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), monitored, rejected);
     }
 }
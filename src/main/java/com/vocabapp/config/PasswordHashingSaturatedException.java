@@ -0,0 +1,14 @@
+package com.vocabapp.config;
+
+/**
+ * Thrown when the password hashing bulkhead has no free thread or queue slot.
+ * Controllers answer it with 503 so the client retries instead of piling up.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public PasswordHashingSaturatedException() {
+        super("Authentication service is busy, please retry shortly");
+    }
+}
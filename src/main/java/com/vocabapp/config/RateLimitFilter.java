@@ -0,0 +1,139 @@
+package com.vocabapp.config;
+
+import com.vocabapp.model.User;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user token buckets for the endpoints that can trigger full-table work. Runs right after
+ * JwtAuthenticationFilter so the user is known; unauthenticated requests are left to security.
+ * <p>
+ * Each bucket is a single AtomicLong holding the GCRA "theoretical arrival time", which behaves
+ * exactly like a token bucket of the configured capacity and refill rate and is updated with CAS.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private record EndpointClass(String name, String method, Pattern path, long intervalNanos, long burstNanos) {
+    }
+    
+    private record BucketKey(Long userId, String endpointClass) {
+    }
+    
+    private final boolean enabled;
+    private final long idleEvictionNanos;
+    private final List<EndpointClass> endpointClasses = new ArrayList<>();
+    private final Map<BucketKey, AtomicLong> buckets = new ConcurrentHashMap<>();
+    
+    public RateLimitFilter(@Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.idle-eviction:PT10M}") Duration idleEviction,
+                           @Value("${app.rate-limit.random.capacity:30}") int randomCapacity,
+                           @Value("${app.rate-limit.random.per-minute:30}") int randomPerMinute,
+                           @Value("${app.rate-limit.quiz.capacity:20}") int quizCapacity,
+                           @Value("${app.rate-limit.quiz.per-minute:20}") int quizPerMinute,
+                           @Value("${app.rate-limit.batch.capacity:5}") int batchCapacity,
+                           @Value("${app.rate-limit.batch.per-minute:10}") int batchPerMinute,
+                           @Value("${app.rate-limit.copy.capacity:3}") int copyCapacity,
+                           @Value("${app.rate-limit.copy.per-minute:5}") int copyPerMinute) {
+        this.enabled = enabled;
+        this.idleEvictionNanos = idleEviction.toNanos();
+        addClass("random", "GET", "/api/vocabulary/random", randomCapacity, randomPerMinute);
+        addClass("quiz", "GET", "/api/vocabulary/quiz", quizCapacity, quizPerMinute);
+        addClass("batch", "POST", "/api/vocabulary/(batch|bulk)", batchCapacity, batchPerMinute);
+        addClass("copy", "POST", "/api/collections/\\d+/copy", copyCapacity, copyPerMinute);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || classify(request) == null;
+    }
+    
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        EndpointClass endpointClass = classify(request);
+        if (endpointClass == null || authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+    
+        long waitNanos = acquire(new BucketKey(user.getId(), endpointClass.name()), endpointClass);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many requests, retry in " + retryAfterSeconds + " seconds\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    /**
+     * Drop buckets that have been full for the idle period; a full bucket behaves like a missing one
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long cutoff = System.nanoTime() - idleEvictionNanos;
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - cutoff < 0);
+    }
+    
+    // Returns 0 if a token was taken, otherwise how long until one is available
+    private long acquire(BucketKey key, EndpointClass endpointClass) {
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - endpointClass.burstNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + endpointClass.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+    
+    private EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (EndpointClass endpointClass : endpointClasses) {
+            if (endpointClass.method().equals(request.getMethod()) && endpointClass.path().matcher(path).matches()) {
+                return endpointClass;
+            }
+        }
+        return null;
+    }
+    
+    private void addClass(String name, String method, String pathRegex, int capacity, int perMinute) {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+        long burst = interval * (Math.max(1, capacity) - 1);
+        endpointClasses.add(new EndpointClass(name, method, Pattern.compile(pathRegex), interval, burst));
+    }
+}
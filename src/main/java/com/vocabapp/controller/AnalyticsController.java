@@ -0,0 +1,56 @@
+package com.vocabapp.controller;
+
+import com.vocabapp.model.User;
+import com.vocabapp.service.AnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {
+        "http://localhost:5173",
+        "http://localhost:3000",
+        "https://vocab-frontend-xi.vercel.app",
+        "https://vocab-frontend-delta.vercel.app"
+})
+public class AnalyticsController {
+    
+    private final AnalyticsService analyticsService;
+    
+    @GetMapping("/daily")
+    public ResponseEntity<?> getDailyAccuracy(@AuthenticationPrincipal User user,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(analyticsService.getDailyAccuracy(user, from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Either ?ids=1,2,3 or a page: ?after=<last vocabularyId seen>&limit=100
+    @GetMapping("/words")
+    public ResponseEntity<?> getWordAccuracy(@AuthenticationPrincipal User user,
+                                             @RequestParam(required = false) List<Long> ids,
+                                             @RequestParam(defaultValue = "0") long after,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(analyticsService.getWordAccuracy(user, ids, after, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/retention")
+    public ResponseEntity<?> getRetention(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(analyticsService.getRetention(user));
+    }
+}
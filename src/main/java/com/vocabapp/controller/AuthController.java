@@ -1,5 +1,6 @@
 package com.vocabapp.controller;
 
+import com.vocabapp.config.PasswordHashingSaturatedException;
 import com.vocabapp.dto.*;
 import com.vocabapp.model.RefreshToken;
 import com.vocabapp.model.User;
@@ -9,6 +10,8 @@ import com.vocabapp.service.RefreshTokenService;
 import com.vocabapp.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -37,6 +40,8 @@ public class AuthController {
         try {
             AuthResponse response = authenticationService.register(request);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingSaturatedException e) {
+            return serviceBusy(e);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
@@ -49,6 +54,8 @@ public class AuthController {
         try {
             AuthResponse response = authenticationService.login(request);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingSaturatedException e) {
+            return serviceBusy(e);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Invalid username/email or password");
@@ -89,10 +96,23 @@ public class AuthController {
             @Valid @RequestBody ChangePasswordRequest request
     ) {
         try {
-            userService.changePassword(user, request.getCurrentPassword(), request.getNewPassword());
-            return ResponseEntity.ok(Map.of("message", "Password changed successfully"));
+            User updated = userService.changePassword(user, request.getCurrentPassword(), request.getNewPassword());
+            // Tokens issued before the change no longer authenticate; hand this client new ones
+            return ResponseEntity.ok(Map.of(
+                    "message", "Password changed successfully",
+                    "token", jwtService.generateToken(updated),
+                    "refreshToken", refreshTokenService.rotateRefreshToken(updated.getId())
+            ));
+        } catch (PasswordHashingSaturatedException e) {
+            return serviceBusy(e);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    private ResponseEntity<?> serviceBusy(PasswordHashingSaturatedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
 }
@@ -3,17 +3,33 @@ package com.vocabapp.controller;
 import com.vocabapp.model.Collection;
 import com.vocabapp.model.User;
 import com.vocabapp.service.CollectionService;
+import com.vocabapp.service.CollectionSnapshotStore;
+import com.vocabapp.service.DataVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,10 +45,20 @@ import java.util.Map;
 })
 public class CollectionController {
     
+    // Tomcat request attributes for handing a file to the connector's sendfile
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
     private final CollectionService collectionService;
+    private final DataVersionService dataVersionService;
     
     @GetMapping
-    public ResponseEntity<List<Collection>> getAllCollections(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<Collection>> getAllCollections(@AuthenticationPrincipal User user, ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, dataVersionService.etag(user), ConditionalGet.REVALIDATE)) {
+            return null;
+        }
         return ResponseEntity.ok(collectionService.getAllCollections(user));
     }
     
@@ -70,8 +96,11 @@ public class CollectionController {
             @PathVariable Long id,
             @AuthenticationPrincipal User user) {
         try {
-            collectionService.deleteCollection(id, user);
-            return ResponseEntity.noContent().build();
+            if (collectionService.deleteCollection(id, user)) {
+                return ResponseEntity.noContent().build();
+            }
+            // Large collection: purge continues in the background
+            return ResponseEntity.accepted().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -113,18 +142,73 @@ public class CollectionController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-
-    // Get vocabularies of a collection
+    
+    // Get vocabularies of a collection; public collections are streamed from their pre-rendered snapshot.
+    // With ?version=N (see contentVersion) the response is immutable and may be cached for a year.
     @GetMapping("/{id}/vocabularies")
     public ResponseEntity<?> getCollectionVocabularies(
             @PathVariable Long id,
-            @AuthenticationPrincipal User user) {
+            @RequestParam(required = false) Long version,
+            @AuthenticationPrincipal User user,
+            ServletWebRequest webRequest) throws IOException {
         try {
-            return ResponseEntity.ok(collectionService.getCollectionVocabularies(id, user));
+            Collection collection = collectionService.getReadableCollection(id, user);
+            long current = collection.getContentVersion();
+            if (version != null && version != current) {
+                // Superseded version: send the client to the current one
+                URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("version", current).build().toUri();
+                return ResponseEntity.status(HttpStatus.FOUND).location(location).build();
+            }
+    
+            String acceptEncoding = webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            boolean gzip = collection.getIsPublic() && acceptEncoding != null && acceptEncoding.contains("gzip");
+            String etag = "\"c" + id + "-v" + current + (gzip ? "-gz" : "") + "\"";
+            CacheControl cacheControl = version != null ? ConditionalGet.IMMUTABLE : ConditionalGet.REVALIDATE;
+            if (ConditionalGet.notModified(webRequest, etag, cacheControl)) {
+                return null;
+            }
+    
+            if (collection.getIsPublic()) {
+                sendSnapshot(collectionService.getSnapshot(collection), gzip, webRequest.getRequest(), webRequest.getResponse());
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(collectionService.getCollectionVocabulariesJson(collection));
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
         }
     }
+    
+    // Zero-copy: Tomcat's sendfile when the connector supports it, otherwise FileChannel.transferTo
+    private void sendSnapshot(CollectionSnapshotStore.Snapshot snapshot, boolean gzip, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        Path file = gzip ? snapshot.gzip() : snapshot.identity();
+        long length = gzip ? snapshot.gzipLength() : snapshot.identityLength();
+    
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLengthLong(length);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+    
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, out);
+            }
+        }
+    }
 }
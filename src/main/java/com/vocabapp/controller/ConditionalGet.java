@@ -0,0 +1,34 @@
+package com.vocabapp.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+
+/**
+ * ETag handling shared by the read endpoints. Cache-Control is set on the response itself so
+ * that 304s carry it too; otherwise Spring Security's default no-store would make the browser
+ * drop the copy it is revalidating.
+ */
+final class ConditionalGet {
+    
+    // Cache, but revalidate with If-None-Match on every use
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    
+    // Versioned URLs whose content never changes
+    static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
+    
+    private ConditionalGet() {
+    }
+    
+    /**
+     * True if the request was answered with 304 and the handler should return null
+     */
+    static boolean notModified(ServletWebRequest request, String etag, CacheControl cacheControl) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+        return request.checkNotModified(etag);
+    }
+}
@@ -0,0 +1,40 @@
+package com.vocabapp.controller;
+
+import com.vocabapp.model.User;
+import com.vocabapp.service.LeaderboardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {
+        "http://localhost:5173",
+        "http://localhost:3000",
+        "https://vocab-frontend-xi.vercel.app",
+        "https://vocab-frontend-delta.vercel.app"
+})
+public class LeaderboardController {
+    
+    private final LeaderboardService leaderboardService;
+    
+    // Boards: weekly-words, streak
+    @GetMapping("/{board}")
+    public ResponseEntity<?> getLeaderboard(@AuthenticationPrincipal User user,
+                                            @PathVariable String board,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "page must be >= 0 and size between 1 and 100"));
+        }
+        try {
+            return ResponseEntity.ok(leaderboardService.getPage(board, page, size, user));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -24,8 +24,11 @@ public class LearningController {
      * GET /api/learning/next/{collectionId}
      */
     @GetMapping("/next/{collectionId}")
-    public ResponseEntity<QuizQuestionDTO> getNextQuestion(@PathVariable Long collectionId) {
-        QuizQuestionDTO question = learningService.getNextQuestion(collectionId);
+    public ResponseEntity<QuizQuestionDTO> getNextQuestion(
+            @PathVariable Long collectionId,
+            @AuthenticationPrincipal User user) {
+        
+        QuizQuestionDTO question = learningService.getNextQuestion(collectionId, user);
         
         if (question == null) {
             return ResponseEntity.noContent().build();
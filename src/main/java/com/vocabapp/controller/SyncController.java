@@ -0,0 +1,35 @@
+package com.vocabapp.controller;
+
+import com.vocabapp.model.User;
+import com.vocabapp.service.ChangeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {
+        "http://localhost:5173",
+        "http://localhost:3000",
+        "https://vocab-frontend-xi.vercel.app",
+        "https://vocab-frontend-delta.vercel.app"
+})
+public class SyncController {
+    
+    private final ChangeFeedService changeFeedService;
+    
+    // Delta sync: since=0 on first launch, then the cursor of the previous response until hasMore is false
+    @GetMapping
+    public ResponseEntity<?> sync(@AuthenticationPrincipal User user,
+                                  @RequestParam(defaultValue = "0") long since,
+                                  @RequestParam(defaultValue = "500") int limit) {
+        if (since < 0 || limit < 1 || limit > 1000) {
+            return ResponseEntity.badRequest().body(Map.of("error", "since must be >= 0 and limit between 1 and 1000"));
+        }
+        return ResponseEntity.ok(changeFeedService.sync(user, since, limit));
+    }
+}
@@ -4,10 +4,13 @@ import com.vocabapp.model.User;
 import com.vocabapp.model.UserProgress;
 import com.vocabapp.service.UserProgressService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 @RestController
@@ -24,8 +27,32 @@ public class UserProgressController {
     private final UserProgressService userProgressService;
     
     @GetMapping
-    public ResponseEntity<UserProgress> getProgress(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(userProgressService.getOrCreateProgress(user));
+    public ResponseEntity<UserProgress> getProgress(@AuthenticationPrincipal User user, ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, userProgressService.progressEtag(user), ConditionalGet.REVALIDATE)) {
+            return null;
+        }
+        return ResponseEntity.ok(userProgressService.getProgress(user));
+    }
+    
+    @GetMapping("/activity")
+    public ResponseEntity<?> getActivity(@AuthenticationPrincipal User user,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(userProgressService.getActivity(user, from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/timezone")
+    public ResponseEntity<?> updateTimezone(@AuthenticationPrincipal User user, @RequestBody Map<String, String> request) {
+        try {
+            String timezone = userProgressService.updateTimezone(user, request.get("timezone"));
+            return ResponseEntity.ok(Map.of("timezone", timezone));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     @PostMapping("/learned")
@@ -34,15 +61,23 @@ public class UserProgressController {
     }
     
     @PostMapping("/study-time")
-    public ResponseEntity<UserProgress> addStudyTime(@AuthenticationPrincipal User user, @RequestBody Map<String, Integer> request) {
+    public ResponseEntity<?> addStudyTime(@AuthenticationPrincipal User user, @RequestBody Map<String, Integer> request) {
         Integer minutes = request.get("minutes");
-        return ResponseEntity.ok(userProgressService.addStudyTime(user, minutes));
+        try {
+            return ResponseEntity.ok(userProgressService.addStudyTime(user, minutes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     @PostMapping("/quiz-result")
-    public ResponseEntity<UserProgress> recordQuizResult(@AuthenticationPrincipal User user, @RequestBody Map<String, Integer> request) {
+    public ResponseEntity<?> recordQuizResult(@AuthenticationPrincipal User user, @RequestBody Map<String, Integer> request) {
         Integer correct = request.get("correct");
         Integer total = request.get("total");
-        return ResponseEntity.ok(userProgressService.recordQuizResult(user, correct, total));
+        try {
+            return ResponseEntity.ok(userProgressService.recordQuizResult(user, correct, total));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 }
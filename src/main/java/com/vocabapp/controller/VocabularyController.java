@@ -1,11 +1,11 @@
 package com.vocabapp.controller;
 
+import com.vocabapp.dto.BulkVocabularyRequest;
 import com.vocabapp.dto.VocabularyDTO;
-import com.vocabapp.model.Collection;
 import com.vocabapp.model.User;
 import com.vocabapp.model.Vocabulary;
 import com.vocabapp.model.VocabularyProgress;
-import com.vocabapp.repository.CollectionRepository;
+import com.vocabapp.service.DataVersionService;
 import com.vocabapp.service.VocabularyProgressService;
 import com.vocabapp.service.VocabularyService;
 import jakarta.validation.Valid;
@@ -15,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -33,7 +34,7 @@ public class VocabularyController {
     
     private final VocabularyService vocabularyService;
     private final VocabularyProgressService progressService;
-    private final CollectionRepository collectionRepository;
+    private final DataVersionService dataVersionService;
     
     @GetMapping
     public ResponseEntity<List<Vocabulary>> getAllVocabulary(@AuthenticationPrincipal User user) {
@@ -93,7 +94,11 @@ public class VocabularyController {
             @RequestParam(defaultValue = "all") String filter,
             @RequestParam(defaultValue = "") String keyword,
             @RequestParam(required = false) Long collectionId,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal User user,
+            ServletWebRequest request) {
+        if (ConditionalGet.notModified(request, dataVersionService.etag(user), ConditionalGet.REVALIDATE)) {
+            return null;
+        }
         return ResponseEntity.ok(vocabularyService.getVocabularyPage(page, size, filter, keyword, collectionId, user));
     }
     
@@ -139,7 +144,7 @@ public class VocabularyController {
         Vocabulary created = vocabularyService.createVocabulary(vocabulary, user);
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
-
+    
     @PostMapping("/batch")
     public ResponseEntity<List<Vocabulary>> createVocabularies(
             @Valid @RequestBody List<Vocabulary> vocabularies,
@@ -148,6 +153,24 @@ public class VocabularyController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    // Apply one action to many vocabularies at once
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> bulkUpdate(
+            @Valid @RequestBody BulkVocabularyRequest request,
+            @AuthenticationPrincipal User user) {
+        try {
+            int affected = vocabularyService.bulkUpdate(request, user);
+            Map<String, Object> result = new HashMap<>();
+            result.put("action", request.getAction());
+            result.put("affected", affected);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Vocabulary> updateVocabulary(
             @PathVariable Long id,
@@ -164,9 +187,10 @@ public class VocabularyController {
     @PatchMapping("/{id}/learned")
     public ResponseEntity<Vocabulary> markAsLearned(
             @PathVariable Long id,
-            @RequestParam Boolean learned) {
+            @RequestParam Boolean learned,
+            @AuthenticationPrincipal User user) {
         try {
-            Vocabulary updated = vocabularyService.markAsLearned(id, learned);
+            Vocabulary updated = vocabularyService.markAsLearned(id, learned, user);
             return ResponseEntity.ok(updated);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -219,19 +243,7 @@ public class VocabularyController {
             @PathVariable Long collectionId,
             @AuthenticationPrincipal User user) {
         try {
-            Vocabulary vocabulary = vocabularyService.getVocabularyById(vocabularyId)
-                    .orElseThrow(() -> new RuntimeException("Vocabulary not found"));
-            
-            // Security check
-            if (!vocabulary.getUser().getId().equals(user.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            Collection collection = collectionRepository.findById(collectionId)
-                    .orElseThrow(() -> new RuntimeException("Collection not found"));
-            
-            vocabulary.getCollections().add(collection);
-            Vocabulary updated = vocabularyService.createVocabulary(vocabulary, user);
+            Vocabulary updated = vocabularyService.addToCollection(vocabularyId, collectionId, user);
             return ResponseEntity.ok(updated);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -242,15 +254,10 @@ public class VocabularyController {
     @DeleteMapping("/{vocabularyId}/collection/{collectionId}")
     public ResponseEntity<Vocabulary> removeFromCollection(
             @PathVariable Long vocabularyId,
-            @PathVariable Long collectionId) {
+            @PathVariable Long collectionId,
+            @AuthenticationPrincipal User user) {
         try {
-            Vocabulary vocabulary = vocabularyService.getVocabularyById(vocabularyId)
-                    .orElseThrow(() -> new RuntimeException("Vocabulary not found"));
-            Collection collection = collectionRepository.findById(collectionId)
-                    .orElseThrow(() -> new RuntimeException("Collection not found"));
-            
-            vocabulary.getCollections().remove(collection);
-            Vocabulary updated = vocabularyService.createVocabulary(vocabulary);
+            Vocabulary updated = vocabularyService.removeFromCollection(vocabularyId, collectionId, user);
             return ResponseEntity.ok(updated);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
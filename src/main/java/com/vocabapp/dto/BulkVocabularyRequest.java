@@ -0,0 +1,23 @@
+package com.vocabapp.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkVocabularyRequest {
+    
+    @NotBlank(message = "Action is required")
+    private String action; // markLearned, resetProgress, addToCollection, removeFromCollection, delete
+    
+    @NotEmpty(message = "At least one vocabulary id is required")
+    private List<Long> ids;
+    
+    private Long collectionId; // Required for addToCollection / removeFromCollection
+}
@@ -12,4 +12,5 @@ public class QuizAnswerDTO {
     private Long collectionId;
     private String answer;
     private String testType; // "first" or "second"
+    private Integer latencyMs; // Optional: time from showing the question to the answer
 }
@@ -0,0 +1,29 @@
+package com.vocabapp.dto;
+
+import com.vocabapp.model.Collection;
+import com.vocabapp.model.UserProgress;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes since the client's cursor. Entities are sent in their current state; a deleted
+ * collection or vocabulary takes its memberships with it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponseDTO {
+    private long cursor; // pass back as ?since= on the next sync
+    private boolean hasMore;
+    private List<VocabularyDTO> vocabularies; // collections left null; see memberships
+    private List<Collection> collections;
+    private Map<Long, List<Long>> memberships; // vocabulary id -> all collection ids it now belongs to
+    private List<Long> deletedVocabularies;
+    private List<Long> deletedCollections;
+    private List<VocabularyProgressDTO> wordProgress; // rows go away with their word or collection
+    private UserProgress progress;
+}
@@ -22,6 +22,7 @@ public class VocabularyDTO {
     private String antonym;
     private String category;
     private Integer difficulty;
+    private Double calibratedDifficulty;
     private Set<Collection> collections;
     private Boolean learned; // This will be collection-specific
     private Integer reviewCount;
@@ -0,0 +1,25 @@
+package com.vocabapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A word's progress in one collection, as sent by GET /api/sync
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VocabularyProgressDTO {
+    private Long id;
+    private Long vocabularyId;
+    private Long collectionId;
+    private Boolean learned;
+    private String learningStatus;
+    private Integer reviewCount;
+    private LocalDateTime lastReviewedAt;
+    private LocalDateTime learnedAt;
+    private LocalDateTime updatedAt;
+}
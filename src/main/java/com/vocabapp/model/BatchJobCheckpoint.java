@@ -0,0 +1,41 @@
+package com.vocabapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of a resumable batch job: the phase it is in and the last id it has fully
+ * processed. Saved in the same transaction as each chunk's output, so a restarted job
+ * continues after the last committed chunk.
+ */
+@Entity
+@Table(name = "batch_job_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchJobCheckpoint {
+    
+    @Id
+    @Column(name = "job_name", length = 50)
+    private String jobName;
+    
+    @Column(nullable = false, length = 20)
+    private String phase;
+    
+    // Chunks cover (lastId, maxId]; maxId is fixed when the phase starts
+    @Column(nullable = false)
+    private Long lastId;
+    
+    @Column(nullable = false)
+    private Long maxId;
+    
+    @Column(nullable = false)
+    private Instant runStartedAt;
+    
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
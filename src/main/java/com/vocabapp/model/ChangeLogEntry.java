@@ -0,0 +1,52 @@
+package com.vocabapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Change feed behind GET /api/sync. There is one row per user and entity, moved to a new
+ * sequence number on every change, so the feed never grows with the number of edits and a
+ * sync reads only the rows past the client's cursor. A delete leaves the row as a tombstone.
+ * Written with native upserts only (ChangeLogRepository.RECORD_SQL).
+ */
+@Entity
+@Table(name = "change_log",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "entity_type", "entity_id"}),
+       indexes = @Index(name = "idx_change_log_user_seq", columnList = "user_id, change_seq"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeLogEntry {
+    
+    public static final String VOCABULARY = "vocabulary";
+    public static final String COLLECTION = "collection";
+    // Entity id is the vocabulary id; the change is to the set of collections it belongs to
+    public static final String MEMBERSHIP = "membership";
+    // Entity id is the vocabulary_progress id: a word's learned state and quiz status in one collection
+    public static final String PROGRESS = "progress";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_seq")
+    @SequenceGenerator(name = "change_log_seq", sequenceName = "change_log_seq", allocationSize = 1)
+    @Column(name = "change_seq")
+    private Long changeSeq;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType;
+    
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    @Column(nullable = false)
+    private Boolean deleted = false;
+    
+    @Column(nullable = false)
+    private Instant changedAt;
+}
@@ -6,12 +6,19 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@SQLRestriction("deleting = false")
 @Table(name = "collections")
 @Data
 @NoArgsConstructor
@@ -41,6 +48,18 @@ public class Collection {
     @Column(nullable = false)
     private Boolean isPublic = false;
     
+    // Version of the word list; keys snapshots, ETags and versioned URLs. Only bumped in SQL through
+    // CollectionRepository.bumpContentVersions*, never written from the entity, so a stale copy cannot roll it back
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long contentVersion = 0L;
+    
+    // Set when a background purge is scheduled; the collection is invisible to every entity query from then on
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    @JsonIgnore
+    private Boolean deleting = false;
+    
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,47 @@
+package com.vocabapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One row per user and local study day. Only ever inserted or incremented,
+ * so it keeps the history that UserProgress resets at every rollover.
+ */
+@Entity
+@Table(name = "daily_activity",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "day"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyActivity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+    
+    @Column(nullable = false)
+    private LocalDate day;
+    
+    @Column(nullable = false)
+    private Integer wordsLearned = 0;
+    
+    @Column(nullable = false)
+    private Integer minutes = 0;
+    
+    @Column(nullable = false)
+    private Integer answers = 0;
+    
+    @Column(nullable = false)
+    private Integer correct = 0;
+}
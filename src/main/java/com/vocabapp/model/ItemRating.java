@@ -0,0 +1,29 @@
+package com.vocabapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A word's Elo-style difficulty, on the same scale as SkillRating. Seeded from the word's
+ * calibrated (or hand-entered) difficulty and copied to VocabularyProgress.rating for question
+ * selection.
+ */
+@Entity
+@Table(name = "item_rating")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemRating {
+    
+    @Id
+    @Column(name = "vocabulary_id")
+    private Long vocabularyId;
+    
+    @Column(nullable = false, columnDefinition = "real")
+    private Float rating;
+    
+    @Column(nullable = false)
+    private Integer answers = 0;
+}
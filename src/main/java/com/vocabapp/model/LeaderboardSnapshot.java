@@ -0,0 +1,43 @@
+package com.vocabapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Persisted standings of a weekly leaderboard: refreshed periodically while the week runs
+ * (so a restart can reload it) and kept as history once the week is over.
+ */
+@Entity
+@Table(name = "leaderboard_snapshot",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"board", "week_start", "user_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 32)
+    private String board;
+    
+    @Column(name = "week_start", nullable = false)
+    private LocalDate weekStart;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+    
+    @Column(nullable = false)
+    private Long score;
+    
+    @Column(nullable = false)
+    private Integer rank;
+}
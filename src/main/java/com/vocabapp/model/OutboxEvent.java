@@ -0,0 +1,51 @@
+package com.vocabapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * Transactional outbox. Domain events are inserted in the same transaction as the write that
+ * raised them and deleted by OutboxDispatcher once their handlers have run, so a pending row
+ * is an event that has not been delivered yet. Rows that used up their attempts stay behind
+ * with the last error for inspection.
+ */
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_available", columnList = "available_at, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "event_type", nullable = false, length = 40)
+    private String eventType;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    // The event record as JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(nullable = false)
+    private Instant createdAt;
+    
+    // Not delivered before this time; pushed back after a failed attempt
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+    
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(length = 500)
+    private String lastError;
+}
@@ -0,0 +1,64 @@
+package com.vocabapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Recall rate by how long it had been since the user last answered the same word: one row per
+ * user and interval bucket, which together make the user's retention curve. A word's first
+ * answer has no interval and is not counted here.
+ */
+@Entity
+@Table(name = "recall_interval_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "bucket"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecallIntervalStats {
+    
+    // Exclusive upper bounds of the buckets; the last bucket is open-ended
+    public static final List<Duration> BUCKET_LIMITS = List.of(
+            Duration.ofHours(1), Duration.ofDays(1), Duration.ofDays(3), Duration.ofDays(7), Duration.ofDays(30));
+    private static final List<String> BUCKET_LABELS = List.of("<1h", "1h-1d", "1d-3d", "3d-7d", "7d-30d", "30d+");
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    @JsonIgnore
+    private Long userId;
+    
+    @Column(nullable = false)
+    private Integer bucket;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(nullable = false)
+    private Integer correct = 0;
+    
+    public static int bucketOf(Duration interval) {
+        for (int i = 0; i < BUCKET_LIMITS.size(); i++) {
+            if (interval.compareTo(BUCKET_LIMITS.get(i)) < 0) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS.size();
+    }
+    
+    public String getInterval() {
+        return BUCKET_LABELS.get(bucket);
+    }
+    
+    public double getRecallRate() {
+        return attempts == 0 ? 0 : (double) correct / attempts;
+    }
+}
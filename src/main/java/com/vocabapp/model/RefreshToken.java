@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import java.time.Instant;
 
 @Entity(name = "refreshtoken")
+@Table(name = "refreshtoken", indexes = @Index(name = "idx_refreshtoken_expiry_date", columnList = "expiry_date"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -16,10 +17,12 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // One-to-one maps to a unique user_id, which the rotation upsert relies on
     @OneToOne
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
+    // SHA-256 (hex) of the token handed to the client
     @Column(nullable = false, unique = true)
     private String token;
 
@@ -0,0 +1,44 @@
+package com.vocabapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Quiz answers per user and local day, rolled up from AnswerSubmitted events by AnalyticsService.
+ * Only ever inserted or incremented.
+ */
+@Entity
+@Table(name = "review_daily_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "day"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewDailyStats {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    @JsonIgnore
+    private Long userId;
+    
+    @Column(nullable = false)
+    private LocalDate day;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(nullable = false)
+    private Integer correct = 0;
+    
+    public double getAccuracy() {
+        return attempts == 0 ? 0 : (double) correct / attempts;
+    }
+}
@@ -0,0 +1,28 @@
+package com.vocabapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A learner's Elo-style skill, moved by RatingService after every quiz answer
+ */
+@Entity
+@Table(name = "skill_rating")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SkillRating {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(nullable = false, columnDefinition = "real")
+    private Float rating;
+    
+    // Drives the shrinking update step; a new learner moves fast, an established one slowly
+    @Column(nullable = false)
+    private Integer answers = 0;
+}
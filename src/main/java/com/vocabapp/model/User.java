@@ -1,9 +1,13 @@
 package com.vocabapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -12,12 +16,18 @@ import java.util.Collection;
 import java.util.Collections;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "users")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User implements UserDetails {
     
+    private static final long serialVersionUID = 1L;
+    
+    public static final String DEFAULT_TIMEZONE = "Asia/Ho_Chi_Minh";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,6 +41,17 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String password;
     
+    // IANA zone id; decides when the user's study day rolls over
+    @Column(nullable = false, length = 64)
+    @ColumnDefault("'" + DEFAULT_TIMEZONE + "'")
+    private String timezone = DEFAULT_TIMEZONE;
+    
+    // Embedded in every JWT; bumping it revokes all tokens issued before
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    private Integer tokenVersion = 0;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,26 @@
+package com.vocabapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-user counter, bumped in the same transaction as every write that changes what the
+ * user's vocabulary list, collections or progress endpoints return. Those endpoints derive
+ * their ETags from it, so a conditional GET is answered from this one row.
+ */
+@Entity
+@Table(name = "user_data_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDataVersion {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(nullable = false)
+    private Long version = 0L;
+}
@@ -5,12 +5,15 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_progress")
+@Table(name = "user_progress", uniqueConstraints = @UniqueConstraint(columnNames = "user_id"),
+        indexes = @Index(name = "idx_user_progress_next_rollover", columnList = "next_rollover_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +23,7 @@ public class UserProgress {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     @JsonIgnore
     private User user;
@@ -55,6 +58,16 @@ public class UserProgress {
     @Column
     private LocalDate lastStudyDate;
     
+    // Whether there was activity since the last rollover; the first activity of a day advances the streak
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    private Boolean studiedToday = false;
+    
+    // Next local midnight of the user, when the rollover job resets the daily counters
+    @Column(name = "next_rollover_at")
+    @JsonIgnore
+    private Instant nextRolloverAt;
+    
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
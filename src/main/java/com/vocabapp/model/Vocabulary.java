@@ -53,11 +53,15 @@ public class Vocabulary {
     @Column(nullable = false)
     private Integer difficulty = 1; // 1-5 scale
     
+    // Empirical 1.0-5.0 from all users' answers, set nightly by DifficultyCalibrationJob; null until calibrated
+    private Double calibratedDifficulty;
+    
     @ManyToMany
     @JoinTable(
         name = "vocabulary_collection",
         joinColumns = @JoinColumn(name = "vocabulary_id"),
-        inverseJoinColumns = @JoinColumn(name = "collection_id")
+        inverseJoinColumns = @JoinColumn(name = "collection_id"),
+        indexes = @Index(name = "idx_vocabulary_collection_collection", columnList = "collection_id, vocabulary_id")
     )
     private Set<Collection> collections = new HashSet<>();
     
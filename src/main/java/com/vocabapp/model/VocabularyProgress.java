@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "vocabulary_progress", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"vocabulary_id", "collection_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"vocabulary_id", "collection_id"}),
+       indexes = @Index(name = "idx_progress_selection", columnList = "collection_id, learning_status, rating"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -49,6 +50,12 @@ public class VocabularyProgress {
     @Column
     private LocalDateTime lastReviewedAt;
     
+    @Column
+    private LocalDateTime learnedAt; // Set when learned flips to true, cleared when it flips back
+    
+    @Column(columnDefinition = "real")
+    private Float rating; // Copy of the word's ItemRating, kept here so question selection is an index probe
+    
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,37 @@
+package com.vocabapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Empirical difficulty of a word across all users, keyed by the normalized word
+ * (lower-cased and trimmed). Rebuilt nightly by DifficultyCalibrationJob.
+ */
+@Entity
+@Table(name = "word_difficulty")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WordDifficulty {
+    
+    @Id
+    @Column(name = "word_key", length = 255)
+    private String wordKey;
+    
+    @Column(nullable = false)
+    private Long attempts;
+    
+    @Column(nullable = false)
+    private Long correct;
+    
+    // 1.0-5.0 in steps of 0.1, from the word's percentile among all calibrated words
+    @Column(nullable = false)
+    private Double difficulty;
+    
+    @Column(nullable = false)
+    private Instant calibratedAt;
+}
@@ -0,0 +1,28 @@
+package com.vocabapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Answer totals per normalized word accumulated by a running DifficultyCalibrationJob.
+ * Emptied at the start of each run; only written with native SQL.
+ */
+@Entity
+@Table(name = "word_difficulty_staging")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WordDifficultyStaging {
+    
+    @Id
+    @Column(name = "word_key", length = 255)
+    private String wordKey;
+    
+    @Column(nullable = false)
+    private Long attempts;
+    
+    @Column(nullable = false)
+    private Long correct;
+}
@@ -0,0 +1,47 @@
+package com.vocabapp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime answer counts per user and word, rolled up from AnswerSubmitted events by
+ * AnalyticsService. lastAnsweredAt is what the recall intervals are measured from.
+ * Removed when the word is deleted.
+ */
+@Entity
+@Table(name = "word_review_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "vocabulary_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WordReviewStats {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    @JsonIgnore
+    private Long userId;
+    
+    @Column(name = "vocabulary_id", nullable = false)
+    private Long vocabularyId;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(nullable = false)
+    private Integer correct = 0;
+    
+    private LocalDateTime lastAnsweredAt;
+    
+    public double getAccuracy() {
+        return attempts == 0 ? 0 : (double) correct / attempts;
+    }
+}
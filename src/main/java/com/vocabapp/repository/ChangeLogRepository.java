@@ -0,0 +1,73 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.ChangeLogEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+    
+    // Moves the entity's row to the end of the user's feed; also used for JDBC batches
+    String RECORD_SQL = "INSERT INTO change_log (change_seq, user_id, entity_type, entity_id, deleted, changed_at) " +
+            "VALUES (nextval('change_log_seq'), :userId, :type, :entityId, :deleted, now()) " +
+            "ON CONFLICT (user_id, entity_type, entity_id) DO UPDATE SET " +
+            "change_seq = EXCLUDED.change_seq, deleted = EXCLUDED.deleted, changed_at = EXCLUDED.changed_at";
+    
+    @Query(value = "SELECT entity_type, entity_id, deleted, change_seq FROM change_log " +
+            "WHERE user_id = :userId AND change_seq > :since ORDER BY change_seq LIMIT :limit", nativeQuery = true)
+    List<Object[]> findSince(@Param("userId") Long userId, @Param("since") long since, @Param("limit") int limit);
+    
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM change_log)", nativeQuery = true)
+    boolean hasEntries();
+    
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM change_log WHERE entity_type = :type)", nativeQuery = true)
+    boolean hasEntries(@Param("type") String type);
+    
+    // One-time seeding of the feed from data that existed before it
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "change_log"))
+    @Query(value = "INSERT INTO change_log (change_seq, user_id, entity_type, entity_id, deleted, changed_at) " +
+            "SELECT nextval('change_log_seq'), c.user_id, '" + ChangeLogEntry.COLLECTION + "', c.id, false, now() " +
+            "FROM (SELECT user_id, id FROM collections ORDER BY id) c " +
+            "ON CONFLICT (user_id, entity_type, entity_id) DO NOTHING", nativeQuery = true)
+    int backfillCollections();
+    
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "change_log"))
+    @Query(value = "INSERT INTO change_log (change_seq, user_id, entity_type, entity_id, deleted, changed_at) " +
+            "SELECT nextval('change_log_seq'), v.user_id, '" + ChangeLogEntry.VOCABULARY + "', v.id, false, now() " +
+            "FROM (SELECT user_id, id FROM vocabulary ORDER BY id) v " +
+            "ON CONFLICT (user_id, entity_type, entity_id) DO NOTHING", nativeQuery = true)
+    int backfillVocabularies();
+    
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "change_log"))
+    @Query(value = "INSERT INTO change_log (change_seq, user_id, entity_type, entity_id, deleted, changed_at) " +
+            "SELECT nextval('change_log_seq'), m.user_id, '" + ChangeLogEntry.MEMBERSHIP + "', m.id, false, now() " +
+            "FROM (SELECT DISTINCT v.user_id, v.id FROM vocabulary_collection vc JOIN vocabulary v ON v.id = vc.vocabulary_id " +
+            "ORDER BY v.id) m " +
+            "ON CONFLICT (user_id, entity_type, entity_id) DO NOTHING", nativeQuery = true)
+    int backfillMemberships();
+    
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "change_log"))
+    @Query(value = "INSERT INTO change_log (change_seq, user_id, entity_type, entity_id, deleted, changed_at) " +
+            "SELECT nextval('change_log_seq'), p.user_id, '" + ChangeLogEntry.PROGRESS + "', p.id, false, now() " +
+            "FROM (SELECT c.user_id, vp.id FROM vocabulary_progress vp JOIN collections c ON c.id = vp.collection_id " +
+            "ORDER BY vp.id) p " +
+            "ON CONFLICT (user_id, entity_type, entity_id) DO NOTHING", nativeQuery = true)
+    int backfillProgress();
+}
@@ -2,11 +2,17 @@ package com.vocabapp.repository;
 
 import com.vocabapp.model.Collection;
 import com.vocabapp.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,11 +25,73 @@ public interface CollectionRepository extends JpaRepository<Collection, Long> {
     Page<Collection> findByUser(User user, Pageable pageable);
     
     Optional<Collection> findByIdAndUser(Long id, User user);
+    List<Collection> findByUserAndIdIn(User user, List<Long> ids);
     
-    // Public collection queries
+    // Public collection queries (query cache; invalidated by any write to collections)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Collection> findByIsPublicTrue();
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Page<Collection> findByIsPublicTrue(Pageable pageable);
     
     @Query("SELECT c FROM Collection c WHERE c.isPublic = true AND (LOWER(c.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(c.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     Page<Collection> searchPublicCollections(String keyword, Pageable pageable);
+    
+    // Set-based deletion (no entity loading)
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_collection"))
+    @Query(value = "DELETE FROM vocabulary_collection WHERE collection_id = :collectionId", nativeQuery = true)
+    int deleteMembershipsByCollectionId(@Param("collectionId") Long collectionId);
+    
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_collection"))
+    @Query(value = "DELETE FROM vocabulary_collection WHERE collection_id = :collectionId AND vocabulary_id IN " +
+            "(SELECT vocabulary_id FROM vocabulary_collection WHERE collection_id = :collectionId LIMIT :limit)", nativeQuery = true)
+    int deleteMembershipChunkByCollectionId(@Param("collectionId") Long collectionId, @Param("limit") int limit);
+    
+    // Native so it also reaches collections already marked deleting
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "collections"))
+    @Query(value = "DELETE FROM collections WHERE id = :id", nativeQuery = true)
+    int deleteByIdInBulk(@Param("id") Long id);
+    
+    // Returns 0 if the collection is not the user's or is already being deleted
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "collections"))
+    @Query(value = "UPDATE collections SET deleting = true WHERE id = :id AND user_id = :userId AND deleting = false", nativeQuery = true)
+    int markDeleting(@Param("id") Long id, @Param("userId") Long userId);
+    
+    // Waits for in-flight membership inserts, which hold a key-share lock on the row
+    @Query(value = "SELECT id FROM collections WHERE id = :id FOR UPDATE", nativeQuery = true)
+    List<Long> lockById(@Param("id") Long id);
+    
+    // Returns [id, user_id] of purges that were scheduled but never finished
+    @Query(value = "SELECT id, user_id FROM collections WHERE deleting = true", nativeQuery = true)
+    List<Object[]> findDeleting();
+    
+    @Query(value = "SELECT id, content_version FROM collections WHERE is_public = true AND deleting = false", nativeQuery = true)
+    List<Object[]> findPublicContentVersions();
+    
+    // Content versions, bumped when words are added to, removed from or edited in a collection
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "collections"))
+    @Query(value = "UPDATE collections SET content_version = content_version + 1 WHERE id IN (:ids)", nativeQuery = true)
+    int bumpContentVersions(@Param("ids") List<Long> ids);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "collections"))
+    @Query(value = "UPDATE collections SET content_version = content_version + 1 WHERE id IN " +
+            "(SELECT vc.collection_id FROM vocabulary_collection vc JOIN vocabulary v ON v.id = vc.vocabulary_id " +
+            "WHERE v.user_id = :userId AND v.id IN (:vocabularyIds))", nativeQuery = true)
+    int bumpContentVersionsForVocabularies(@Param("userId") Long userId, @Param("vocabularyIds") List<Long> vocabularyIds);
+    
+    // Same for words of any user; for background jobs
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "collections"))
+    @Query(value = "UPDATE collections SET content_version = content_version + 1 WHERE id IN " +
+            "(SELECT collection_id FROM vocabulary_collection WHERE vocabulary_id IN (:vocabularyIds))", nativeQuery = true)
+    int bumpContentVersionsForAnyVocabularies(@Param("vocabularyIds") List<Long> vocabularyIds);
 }
@@ -0,0 +1,40 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.DailyActivity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyActivityRepository extends JpaRepository<DailyActivity, Long> {
+    
+    // Range scan on the (user_id, day) unique index
+    List<DailyActivity> findByUserIdAndDayBetweenOrderByDayAsc(Long userId, LocalDate from, LocalDate to);
+    
+    /**
+     * Add to the user's row for their current local day, creating it on first activity.
+     * Shared with the batched flush in ProgressWriteBuffer.
+     */
+    String RECORD_ACTIVITY_SQL = "INSERT INTO daily_activity (user_id, day, words_learned, minutes, answers, correct) " +
+            "SELECT u.id, CAST(timezone(u.timezone, now()) AS date), :words, :minutes, :answers, :correct " +
+            "FROM users u WHERE u.id = :userId " +
+            "ON CONFLICT (user_id, day) DO UPDATE SET " +
+            "words_learned = daily_activity.words_learned + EXCLUDED.words_learned, " +
+            "minutes = daily_activity.minutes + EXCLUDED.minutes, " +
+            "answers = daily_activity.answers + EXCLUDED.answers, " +
+            "correct = daily_activity.correct + EXCLUDED.correct";
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_activity"))
+    @Query(value = RECORD_ACTIVITY_SQL, nativeQuery = true)
+    int recordActivity(@Param("userId") Long userId, @Param("words") int words, @Param("minutes") int minutes,
+                       @Param("answers") int answers, @Param("correct") int correct);
+}
@@ -0,0 +1,36 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.ItemRating;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ItemRatingRepository extends JpaRepository<ItemRating, Long> {
+    
+    // Starting rating of a word: 100 points per difficulty step around the initial rating at difficulty 3
+    String SEED_RATING_SQL = "(CAST(:initialRating AS real) + 100 * (COALESCE(v.calibrated_difficulty, v.difficulty) - 3))";
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_rating"))
+    @Query(value = "INSERT INTO item_rating (vocabulary_id, rating, answers) " +
+            "SELECT v.id, " + SEED_RATING_SQL + ", 0 FROM vocabulary v WHERE v.id = :vocabularyId " +
+            "ON CONFLICT (vocabulary_id) DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("vocabularyId") Long vocabularyId, @Param("initialRating") float initialRating);
+    
+    // Returns [rating, answers]
+    @Query(value = "SELECT rating, answers FROM item_rating WHERE vocabulary_id = :vocabularyId FOR UPDATE", nativeQuery = true)
+    List<Object[]> lock(@Param("vocabularyId") Long vocabularyId);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "item_rating"))
+    @Query(value = "UPDATE item_rating SET rating = :rating, answers = answers + 1 WHERE vocabulary_id = :vocabularyId", nativeQuery = true)
+    int update(@Param("vocabularyId") Long vocabularyId, @Param("rating") float rating);
+}
@@ -0,0 +1,22 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.LeaderboardSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LeaderboardSnapshotRepository extends JpaRepository<LeaderboardSnapshot, Long> {
+    
+    String UPSERT_SQL = "INSERT INTO leaderboard_snapshot (board, week_start, user_id, score, rank) " +
+            "VALUES (:board, :weekStart, :userId, :score, :rank) " +
+            "ON CONFLICT (board, week_start, user_id) DO UPDATE SET score = EXCLUDED.score, rank = EXCLUDED.rank";
+    
+    // (user_id, score) pairs of one board and week
+    @Query(value = "SELECT user_id, score FROM leaderboard_snapshot WHERE board = :board AND week_start = :weekStart", nativeQuery = true)
+    List<Object[]> findScores(@Param("board") String board, @Param("weekStart") LocalDate weekStart);
+}
@@ -0,0 +1,43 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.OutboxEvent;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    // Used for JDBC batches from OutboxService
+    String INSERT_SQL = "INSERT INTO outbox_event (event_type, user_id, payload, created_at, available_at, attempts) " +
+            "VALUES (:type, :userId, :payload, now(), now(), 0)";
+    
+    // Rows locked by another dispatcher are skipped, so several instances can drain the outbox side by side
+    @Query(value = "SELECT id, event_type, payload FROM outbox_event " +
+            "WHERE available_at <= now() AND attempts < :maxAttempts " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> claimBatch(@Param("limit") int limit, @Param("maxAttempts") int maxAttempts);
+    
+    @Query(value = "SELECT id, event_type, payload FROM outbox_event WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> claim(@Param("id") Long id);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "outbox_event"))
+    @Query(value = "DELETE FROM outbox_event WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Long> ids);
+    
+    // Exponential backoff: the n-th failure delays the next attempt by backoff * 2^(n-1)
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "outbox_event"))
+    @Query(value = "UPDATE outbox_event SET attempts = attempts + 1, last_error = :error, " +
+            "available_at = now() + make_interval(secs => :backoffSeconds * power(2, attempts)) " +
+            "WHERE id = :id", nativeQuery = true)
+    int markFailed(@Param("id") Long id, @Param("error") String error, @Param("backoffSeconds") double backoffSeconds);
+}
@@ -0,0 +1,20 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.RecallIntervalStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RecallIntervalStatsRepository extends JpaRepository<RecallIntervalStats, Long> {
+    
+    // Used for JDBC batches from AnalyticsService
+    String ADD_SQL = "INSERT INTO recall_interval_stats (user_id, bucket, attempts, correct) " +
+            "VALUES (:userId, :bucket, :attempts, :correct) " +
+            "ON CONFLICT (user_id, bucket) DO UPDATE SET " +
+            "attempts = recall_interval_stats.attempts + EXCLUDED.attempts, " +
+            "correct = recall_interval_stats.correct + EXCLUDED.correct";
+    
+    List<RecallIntervalStats> findByUserIdOrderByBucketAsc(Long userId);
+}
@@ -1,22 +1,41 @@
 package com.vocabapp.repository;
 
 import com.vocabapp.model.RefreshToken;
-import com.vocabapp.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    // Looked up by the token's hash
     Optional<RefreshToken> findByToken(String token);
 
+    // One token per user: replaces the previous one in place
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refreshtoken"))
+    @Query(value = "INSERT INTO refreshtoken (user_id, token, expiry_date) VALUES (:userId, :token, :expiryDate) " +
+            "ON CONFLICT (user_id) DO UPDATE SET token = EXCLUDED.token, expiry_date = EXCLUDED.expiry_date", nativeQuery = true)
+    int upsertForUser(@Param("userId") Long userId, @Param("token") String token, @Param("expiryDate") Instant expiryDate);
+
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refreshtoken"))
+    @Query(value = "DELETE FROM refreshtoken WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUserId(@Param("userId") Long userId);
+
     @Modifying
     @Transactional
-    @Query("DELETE FROM refreshtoken rt WHERE rt.user = :user")
-    int deleteByUser(@Param("user") User user);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refreshtoken"))
+    @Query(value = "DELETE FROM refreshtoken WHERE id IN (" +
+            "SELECT id FROM refreshtoken WHERE expiry_date < :now LIMIT :limit)", nativeQuery = true)
+    int deleteExpiredChunk(@Param("now") Instant now, @Param("limit") int limit);
 }
@@ -0,0 +1,22 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.ReviewDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ReviewDailyStatsRepository extends JpaRepository<ReviewDailyStats, Long> {
+    
+    // Used for JDBC batches from AnalyticsService
+    String ADD_SQL = "INSERT INTO review_daily_stats (user_id, day, attempts, correct) " +
+            "VALUES (:userId, :day, :attempts, :correct) " +
+            "ON CONFLICT (user_id, day) DO UPDATE SET " +
+            "attempts = review_daily_stats.attempts + EXCLUDED.attempts, " +
+            "correct = review_daily_stats.correct + EXCLUDED.correct";
+    
+    // Range scan on the (user_id, day) unique index
+    List<ReviewDailyStats> findByUserIdAndDayBetweenOrderByDayAsc(Long userId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,36 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.SkillRating;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SkillRatingRepository extends JpaRepository<SkillRating, Long> {
+    
+    @Query(value = "SELECT rating FROM skill_rating WHERE user_id = :userId", nativeQuery = true)
+    Optional<Float> findRating(@Param("userId") Long userId);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "skill_rating"))
+    @Query(value = "INSERT INTO skill_rating (user_id, rating, answers) VALUES (:userId, :rating, 0) " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("userId") Long userId, @Param("rating") float rating);
+    
+    // Returns [rating, answers]
+    @Query(value = "SELECT rating, answers FROM skill_rating WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    List<Object[]> lock(@Param("userId") Long userId);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "skill_rating"))
+    @Query(value = "UPDATE skill_rating SET rating = :rating, answers = answers + 1 WHERE user_id = :userId", nativeQuery = true)
+    int update(@Param("userId") Long userId, @Param("rating") float rating);
+}
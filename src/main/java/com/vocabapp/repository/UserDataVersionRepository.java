@@ -0,0 +1,37 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.UserDataVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface UserDataVersionRepository extends JpaRepository<UserDataVersion, Long> {
+    
+    @Query(value = "SELECT version FROM user_data_versions WHERE user_id = :userId", nativeQuery = true)
+    Optional<Long> findVersion(@Param("userId") Long userId);
+    
+    // Creates the row on a user's first write
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_data_versions"))
+    @Query(value = "INSERT INTO user_data_versions (user_id, version) " +
+            "SELECT id, 1 FROM users WHERE id IN (:userIds) ORDER BY id " +
+            "ON CONFLICT (user_id) DO UPDATE SET version = user_data_versions.version + 1", nativeQuery = true)
+    int bump(@Param("userIds") Collection<Long> userIds);
+    
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_data_versions"))
+    @Query(value = "UPDATE user_data_versions SET version = version + 1", nativeQuery = true)
+    int bumpAll();
+}
@@ -2,12 +2,130 @@ package com.vocabapp.repository;
 
 import com.vocabapp.model.User;
 import com.vocabapp.model.UserProgress;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserProgressRepository extends JpaRepository<UserProgress, Long> {
     Optional<UserProgress> findByUser(User user);
+    
+    Optional<UserProgress> findByUserId(Long userId);
+    
+    // Next local midnight for the user joined as u, as an absolute timestamp
+    String NEXT_LOCAL_MIDNIGHT = "timezone(u.timezone, date_trunc('day', timezone(u.timezone, now())) + interval '1 day')";
+    
+    /**
+     * Create the row on first use, seeding the word counts from the vocabulary table.
+     * Runs once per user; afterwards the counts are maintained incrementally.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_progress"))
+    @Query(value = "INSERT INTO user_progress (user_id, total_words, learned_words, streak_days, study_time_minutes, study_time_today, " +
+            "words_learned_today, quizzes_taken, correct_answers, total_answers, studied_today, next_rollover_at, created_at, updated_at) " +
+            "SELECT u.id, (SELECT COUNT(*) FROM vocabulary WHERE user_id = u.id), " +
+            "(SELECT COUNT(*) FROM vocabulary WHERE user_id = u.id AND learned = true), 0, 0, 0, 0, 0, 0, 0, false, " +
+            NEXT_LOCAL_MIDNIGHT + ", now(), now() FROM users u WHERE u.id = :userId " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("userId") Long userId);
+    
+    // Same seeding for every user that has no row yet; run at startup for accounts created before the counters existed
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_progress"))
+    @Query(value = "INSERT INTO user_progress (user_id, total_words, learned_words, streak_days, study_time_minutes, study_time_today, " +
+            "words_learned_today, quizzes_taken, correct_answers, total_answers, studied_today, next_rollover_at, created_at, updated_at) " +
+            "SELECT u.id, COUNT(v.id), COUNT(v.id) FILTER (WHERE v.learned = true), 0, 0, 0, 0, 0, 0, 0, false, " +
+            NEXT_LOCAL_MIDNIGHT + ", now(), now() FROM users u LEFT JOIN vocabulary v ON v.user_id = u.id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM user_progress up WHERE up.user_id = u.id) GROUP BY u.id " +
+            "ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int createMissing();
+    
+    /**
+     * Add activity deltas in one atomic statement. No date arithmetic here: the first
+     * activity since the last rollover advances the streak, and the rollover job
+     * resets the daily counters. Shared with the batched flush in ProgressWriteBuffer.
+     */
+    String APPLY_ACTIVITY_SQL = "UPDATE user_progress SET " +
+            "streak_days = CASE WHEN studied_today THEN streak_days ELSE streak_days + 1 END, " +
+            "studied_today = true, " +
+            "study_time_today = study_time_today + :minutes, " +
+            "words_learned_today = words_learned_today + :words, " +
+            "study_time_minutes = study_time_minutes + :minutes, " +
+            "quizzes_taken = quizzes_taken + :quizzes, " +
+            "correct_answers = correct_answers + :correct, " +
+            "total_answers = total_answers + :total, " +
+            "last_study_date = CAST(timezone((SELECT timezone FROM users WHERE id = :userId), now()) AS date), " +
+            "updated_at = now() " +
+            "WHERE user_id = :userId";
+    
+    @Query(value = APPLY_ACTIVITY_SQL + " RETURNING *", nativeQuery = true)
+    Optional<UserProgress> applyActivity(@Param("userId") Long userId, @Param("words") int words, @Param("minutes") int minutes,
+                                         @Param("quizzes") int quizzes, @Param("correct") int correct, @Param("total") int total);
+    
+    /**
+     * Day rollover for up to :limit users whose local midnight has passed; returns their new streaks. A streak survives
+     * only if the day that just ended had activity; rows that missed a rollover (downtime)
+     * or predate the rollover column are judged by their last study date instead.
+     */
+    @Transactional
+    @Query(value = "UPDATE user_progress p SET " +
+            "streak_days = CASE " +
+            "WHEN p.next_rollover_at > now() - interval '1 day' THEN CASE WHEN p.studied_today THEN p.streak_days ELSE 0 END " +
+            "WHEN p.last_study_date >= CAST(timezone(u.timezone, now()) AS date) - 1 THEN p.streak_days ELSE 0 END, " +
+            "studied_today = p.next_rollover_at IS NULL AND p.last_study_date IS NOT NULL " +
+            "AND p.last_study_date = CAST(timezone(u.timezone, now()) AS date), " +
+            "study_time_today = CASE WHEN p.next_rollover_at IS NULL AND p.last_study_date = CAST(timezone(u.timezone, now()) AS date) " +
+            "THEN p.study_time_today ELSE 0 END, " +
+            "words_learned_today = CASE WHEN p.next_rollover_at IS NULL AND p.last_study_date = CAST(timezone(u.timezone, now()) AS date) " +
+            "THEN p.words_learned_today ELSE 0 END, " +
+            "next_rollover_at = " + NEXT_LOCAL_MIDNIGHT + " " +
+            "FROM users u WHERE u.id = p.user_id AND p.id IN (" +
+            "SELECT id FROM user_progress WHERE next_rollover_at <= now() OR next_rollover_at IS NULL " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING p.user_id, p.streak_days", nativeQuery = true)
+    List<Object[]> rolloverDueChunk(@Param("limit") int limit);
+    
+    // (user_id, streak_days) pairs for the streak leaderboard
+    @Query(value = "SELECT user_id, streak_days FROM user_progress WHERE streak_days > 0", nativeQuery = true)
+    List<Object[]> findActiveStreaks();
+    
+    @Query(value = "SELECT user_id, streak_days FROM user_progress WHERE user_id IN (:userIds)", nativeQuery = true)
+    List<Object[]> findStreaksByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    // Re-aim the next rollover after a timezone change
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_progress"))
+    @Query(value = "UPDATE user_progress p SET next_rollover_at = " + NEXT_LOCAL_MIDNIGHT + " " +
+            "FROM users u WHERE u.id = p.user_id AND p.user_id = :userId", nativeQuery = true)
+    int rescheduleRollover(@Param("userId") Long userId);
+    
+    // Apply deltas to the incrementally maintained word counts
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_progress"))
+    @Query(value = "UPDATE user_progress SET " +
+            "total_words = GREATEST(total_words + :totalDelta, 0), " +
+            "learned_words = GREATEST(learned_words + :learnedDelta, 0), " +
+            "updated_at = now() WHERE user_id = :userId", nativeQuery = true)
+    int adjustWordCounts(@Param("userId") Long userId, @Param("totalDelta") int totalDelta, @Param("learnedDelta") int learnedDelta);
+    
+    // Repair drift of the maintained counts against the vocabulary table
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_progress"))
+    @Query(value = "UPDATE user_progress up SET total_words = c.total, learned_words = c.learned, updated_at = now() " +
+            "FROM (SELECT p.user_id, COUNT(v.id) AS total, COUNT(v.id) FILTER (WHERE v.learned) AS learned " +
+            "FROM user_progress p LEFT JOIN vocabulary v ON v.user_id = p.user_id GROUP BY p.user_id) c " +
+            "WHERE up.user_id = c.user_id AND (up.total_words <> c.total OR up.learned_words <> c.learned)", nativeQuery = true)
+    int reconcileWordCounts();
 }
@@ -1,17 +1,27 @@
 package com.vocabapp.repository;
 
 import com.vocabapp.model.VocabularyProgress;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface VocabularyProgressRepository extends JpaRepository<VocabularyProgress, Long> {
     
+    // A word's current item rating, or its seed rating if it has never been answered (v is the vocabulary row)
+    String ITEM_RATING_SQL = "COALESCE((SELECT ir.rating FROM item_rating ir WHERE ir.vocabulary_id = v.id), " +
+            ItemRatingRepository.SEED_RATING_SQL + ")";
+    
     Optional<VocabularyProgress> findByVocabularyIdAndCollectionId(Long vocabularyId, Long collectionId);
     
     List<VocabularyProgress> findByCollectionId(Long collectionId);
@@ -20,7 +30,7 @@ public interface VocabularyProgressRepository extends JpaRepository<VocabularyPr
     
     Long countByCollectionIdAndLearned(Long collectionId, Boolean learned);
     
-    
+
     @Query("SELECT COUNT(vp) FROM VocabularyProgress vp WHERE vp.learned = true")
     Long countAllLearned();
     
@@ -29,5 +39,146 @@ public interface VocabularyProgressRepository extends JpaRepository<VocabularyPr
     
     @Query("SELECT vp FROM VocabularyProgress vp WHERE vp.collection.id = :collectionId AND vp.learningStatus = :status")
     List<VocabularyProgress> findByCollectionIdAndLearningStatus(@Param("collectionId") Long collectionId, @Param("status") com.vocabapp.model.LearningStatus status);
+    
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_progress"))
+    @Query(value = "DELETE FROM vocabulary_progress WHERE collection_id = :collectionId", nativeQuery = true)
+    int deleteByCollectionIdInBulk(@Param("collectionId") Long collectionId);
+    
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_progress"))
+    @Query(value = "DELETE FROM vocabulary_progress WHERE id IN " +
+            "(SELECT id FROM vocabulary_progress WHERE collection_id = :collectionId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByCollectionId(@Param("collectionId") Long collectionId, @Param("limit") int limit);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_progress"))
+    @Query(value = "UPDATE vocabulary_progress SET learned = false, learning_status = 'NOT_STARTED', " +
+            "first_attempt_correct = false, second_attempt_correct = false, review_count = 0, last_reviewed_at = NULL, updated_at = now() " +
+            "WHERE vocabulary_id IN (SELECT id FROM vocabulary WHERE user_id = :userId AND id IN (:ids))", nativeQuery = true)
+    int resetByVocabularyIdsInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    @Query(value = "SELECT id FROM vocabulary_progress " +
+            "WHERE vocabulary_id IN (SELECT id FROM vocabulary WHERE user_id = :userId AND id IN (:ids))", nativeQuery = true)
+    List<Long> findIdsByVocabularyIds(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    // Delta sync; returns [id, vocabulary_id, collection_id, learned, learning_status, review_count,
+    // last_reviewed_at, learned_at, updated_at]
+    @Query(value = "SELECT vp.id, vp.vocabulary_id, vp.collection_id, vp.learned, vp.learning_status, vp.review_count, " +
+            "vp.last_reviewed_at, vp.learned_at, vp.updated_at FROM vocabulary_progress vp " +
+            "JOIN collections c ON c.id = vp.collection_id WHERE c.user_id = :userId AND vp.id IN (:ids)", nativeQuery = true)
+    List<Object[]> findForSync(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_progress"))
+    @Query(value = "DELETE FROM vocabulary_progress " +
+            "WHERE vocabulary_id IN (SELECT id FROM vocabulary WHERE user_id = :userId AND id IN (:ids))", nativeQuery = true)
+    int deleteByVocabularyIdsInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    // Atomic upserts keyed on (vocabulary_id, collection_id); safe under concurrent requests
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_progress"))
+    @Query(value = "INSERT INTO vocabulary_progress (vocabulary_id, collection_id, learned, learning_status, first_attempt_correct, " +
+            "second_attempt_correct, review_count, created_at, updated_at) " +
+            "VALUES (:vocabularyId, :collectionId, false, 'NOT_STARTED', false, false, 0, now(), now()) " +
+            "ON CONFLICT (vocabulary_id, collection_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("vocabularyId") Long vocabularyId, @Param("collectionId") Long collectionId);
+    
+    // Rated progress rows for every membership of the given words, created together with the memberships so that
+    // question selection never has to initialize a collection. A row the answer/learned upserts created before the
+    // word joined the collection is unrated; it only gets its rating here.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_progress"))
+    @Query(value = "INSERT INTO vocabulary_progress (vocabulary_id, collection_id, learned, learning_status, first_attempt_correct, " +
+            "second_attempt_correct, review_count, rating, created_at, updated_at) " +
+            "SELECT vc.vocabulary_id, vc.collection_id, false, 'NOT_STARTED', false, false, 0, " + ITEM_RATING_SQL + ", now(), now() " +
+            "FROM vocabulary_collection vc JOIN vocabulary v ON v.id = vc.vocabulary_id WHERE vc.vocabulary_id IN (:vocabularyIds) " +
+            "ON CONFLICT (vocabulary_id, collection_id) DO UPDATE SET rating = EXCLUDED.rating " +
+            "WHERE vocabulary_progress.rating IS NULL", nativeQuery = true)
+    int initializeForVocabularies(@Param("vocabularyIds") List<Long> vocabularyIds, @Param("initialRating") float initialRating);
+    
+    // Same for every membership without a rated row, for data from before memberships were seeded
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_progress"))
+    @Query(value = "INSERT INTO vocabulary_progress (vocabulary_id, collection_id, learned, learning_status, first_attempt_correct, " +
+            "second_attempt_correct, review_count, rating, created_at, updated_at) " +
+            "SELECT vc.vocabulary_id, vc.collection_id, false, 'NOT_STARTED', false, false, 0, " + ITEM_RATING_SQL + ", now(), now() " +
+            "FROM vocabulary_collection vc JOIN vocabulary v ON v.id = vc.vocabulary_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM vocabulary_progress vp WHERE vp.vocabulary_id = vc.vocabulary_id " +
+            "AND vp.collection_id = vc.collection_id AND vp.rating IS NOT NULL) " +
+            "ON CONFLICT (vocabulary_id, collection_id) DO UPDATE SET rating = EXCLUDED.rating " +
+            "WHERE vocabulary_progress.rating IS NULL", nativeQuery = true)
+    int initializeMissing(@Param("initialRating") float initialRating);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_progress"))
+    @Query(value = "UPDATE vocabulary_progress SET rating = :rating WHERE vocabulary_id = :vocabularyId", nativeQuery = true)
+    int updateRating(@Param("vocabularyId") Long vocabularyId, @Param("rating") float rating);
+    
+    /**
+     * Nearest rated word on each side of the target, per status; each branch is one probe of idx_progress_selection.
+     * Returns [vocabulary_id, learning_status, rating].
+     */
+    @Query(value = "(SELECT vocabulary_id, learning_status, rating FROM vocabulary_progress " +
+            "WHERE collection_id = :collectionId AND learning_status = 'NOT_STARTED' AND rating >= :choiceTarget ORDER BY rating LIMIT 1) " +
+            "UNION ALL (SELECT vocabulary_id, learning_status, rating FROM vocabulary_progress " +
+            "WHERE collection_id = :collectionId AND learning_status = 'NOT_STARTED' AND rating < :choiceTarget ORDER BY rating DESC LIMIT 1) " +
+            "UNION ALL (SELECT vocabulary_id, learning_status, rating FROM vocabulary_progress " +
+            "WHERE collection_id = :collectionId AND learning_status = 'LEARNING' AND rating >= :typingTarget ORDER BY rating LIMIT 1) " +
+            "UNION ALL (SELECT vocabulary_id, learning_status, rating FROM vocabulary_progress " +
+            "WHERE collection_id = :collectionId AND learning_status = 'LEARNING' AND rating < :typingTarget ORDER BY rating DESC LIMIT 1)",
+            nativeQuery = true)
+    List<Object[]> findNearestRated(@Param("collectionId") Long collectionId,
+                                    @Param("choiceTarget") float choiceTarget, @Param("typingTarget") float typingTarget);
+    
+    @Query(value = "INSERT INTO vocabulary_progress (vocabulary_id, collection_id, learned, learning_status, first_attempt_correct, " +
+            "second_attempt_correct, review_count, last_reviewed_at, learned_at, created_at, updated_at) " +
+            "VALUES (:vocabularyId, :collectionId, true, 'NOT_STARTED', false, false, 0, :now, :now, :now, :now) " +
+            "ON CONFLICT (vocabulary_id, collection_id) DO UPDATE SET " +
+            "learned = NOT vocabulary_progress.learned, " +
+            "learned_at = CASE WHEN vocabulary_progress.learned THEN NULL ELSE EXCLUDED.learned_at END, " +
+            "last_reviewed_at = EXCLUDED.last_reviewed_at, updated_at = EXCLUDED.updated_at " +
+            "RETURNING *", nativeQuery = true)
+    VocabularyProgress upsertToggleLearned(@Param("vocabularyId") Long vocabularyId, @Param("collectionId") Long collectionId,
+                                           @Param("now") LocalDateTime now);
+    
+    @Query(value = "INSERT INTO vocabulary_progress (vocabulary_id, collection_id, learned, learning_status, first_attempt_correct, " +
+            "second_attempt_correct, review_count, last_reviewed_at, learned_at, created_at, updated_at) " +
+            "VALUES (:vocabularyId, :collectionId, :learned, 'NOT_STARTED', false, false, 1, :now, " +
+            "CASE WHEN :learned THEN CAST(:now AS timestamp) END, :now, :now) " +
+            "ON CONFLICT (vocabulary_id, collection_id) DO UPDATE SET " +
+            "learned = EXCLUDED.learned, " +
+            "learned_at = CASE WHEN NOT EXCLUDED.learned THEN NULL " +
+            "WHEN vocabulary_progress.learned THEN vocabulary_progress.learned_at ELSE EXCLUDED.learned_at END, " +
+            "review_count = COALESCE(vocabulary_progress.review_count, 0) + 1, " +
+            "last_reviewed_at = EXCLUDED.last_reviewed_at, updated_at = EXCLUDED.updated_at " +
+            "RETURNING *", nativeQuery = true)
+    VocabularyProgress upsertLearned(@Param("vocabularyId") Long vocabularyId, @Param("collectionId") Long collectionId,
+                                     @Param("learned") boolean learned, @Param("now") LocalDateTime now);
+    
+    // First test (multiple choice): correct -> LEARNING, wrong -> NOT_STARTED
+    // Second test (typing): correct -> MASTERED and learned, wrong -> LEARNING
+    @Query(value = "INSERT INTO vocabulary_progress (vocabulary_id, collection_id, learned, learning_status, first_attempt_correct, " +
+            "second_attempt_correct, review_count, last_reviewed_at, learned_at, rating, created_at, updated_at) " +
+            "VALUES (:vocabularyId, :collectionId, (:typingTest AND :correct), " +
+            "CASE WHEN :typingTest THEN (CASE WHEN :correct THEN 'MASTERED' ELSE 'LEARNING' END) " +
+            "ELSE (CASE WHEN :correct THEN 'LEARNING' ELSE 'NOT_STARTED' END) END, " +
+            "(NOT :typingTest AND :correct), (:typingTest AND :correct), 1, :now, " +
+            "CASE WHEN :typingTest AND :correct THEN CAST(:now AS timestamp) END, :rating, :now, :now) " +
+            "ON CONFLICT (vocabulary_id, collection_id) DO UPDATE SET " +
+            "learning_status = EXCLUDED.learning_status, " +
+            "first_attempt_correct = CASE WHEN :typingTest THEN vocabulary_progress.first_attempt_correct ELSE EXCLUDED.first_attempt_correct END, " +
+            "second_attempt_correct = CASE WHEN :typingTest THEN EXCLUDED.second_attempt_correct ELSE vocabulary_progress.second_attempt_correct END, " +
+            "learned = vocabulary_progress.learned OR EXCLUDED.learned, " +
+            "learned_at = CASE WHEN vocabulary_progress.learned THEN vocabulary_progress.learned_at ELSE EXCLUDED.learned_at END, " +
+            "review_count = COALESCE(vocabulary_progress.review_count, 0) + 1, " +
+            "rating = EXCLUDED.rating, " +
+            "last_reviewed_at = EXCLUDED.last_reviewed_at, updated_at = EXCLUDED.updated_at " +
+            "RETURNING *", nativeQuery = true)
+    VocabularyProgress upsertAnswer(@Param("vocabularyId") Long vocabularyId, @Param("collectionId") Long collectionId,
+                                    @Param("typingTest") boolean typingTest, @Param("correct") boolean correct,
+                                    @Param("rating") float rating, @Param("now") LocalDateTime now);
 }
-
@@ -2,10 +2,15 @@ package com.vocabapp.repository;
 
 import com.vocabapp.model.User;
 import com.vocabapp.model.Vocabulary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -35,15 +40,19 @@ public interface VocabularyRepository extends JpaRepository<Vocabulary, Long> {
     @Query("SELECT v FROM Vocabulary v JOIN v.collections c WHERE c.id = :collectionId AND v.user = :user")
     Page<Vocabulary> findByCollectionIdAndUser(Long collectionId, User user, Pageable pageable);
     
+    // A word of this user that is a member of the collection
+    @Query("SELECT v FROM Vocabulary v JOIN v.collections c WHERE v.id = :id AND c.id = :collectionId AND v.user = :user")
+    Optional<Vocabulary> findByIdAndCollectionIdAndUser(Long id, Long collectionId, User user);
+    
     @Query("SELECT v FROM Vocabulary v WHERE v.learned = false AND v.user = :user ORDER BY v.reviewCount ASC, RAND()")
     List<Vocabulary> findUnlearnedWordsForReviewByUser(User user);
     
     @Query("SELECT v FROM Vocabulary v WHERE v.user = :user ORDER BY RAND()")
     List<Vocabulary> findRandomWordsByUser(User user);
-
+    
     @Query("SELECT v FROM Vocabulary v WHERE v.learned = true AND v.user = :user ORDER BY RAND()")
     List<Vocabulary> findRandomLearnedWordsByUser(User user);
-
+    
     @Query("SELECT v FROM Vocabulary v WHERE v.learned = false AND v.user = :user ORDER BY RAND()")
     List<Vocabulary> findRandomUnlearnedWordsByUser(User user);
     
@@ -55,6 +64,57 @@ public interface VocabularyRepository extends JpaRepository<Vocabulary, Long> {
     @Query("SELECT COUNT(v) FROM Vocabulary v JOIN v.collections c WHERE c.id = :collectionId AND v.user = :user")
     Long countByCollectionIdAndUser(Long collectionId, User user);
     
+    // Delta sync
+    List<Vocabulary> findByUserAndIdIn(User user, List<Long> ids);
+    
+    @Query(value = "SELECT vocabulary_id, collection_id FROM vocabulary_collection WHERE vocabulary_id IN (:vocabularyIds)", nativeQuery = true)
+    List<Object[]> findMemberships(@Param("vocabularyIds") List<Long> vocabularyIds);
+    
+    @Query(value = "SELECT id FROM vocabulary WHERE user_id = :userId AND id IN (:ids)", nativeQuery = true)
+    List<Long> findOwnedIds(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    // Bulk operations (single statements scoped to the owner). Native writes name the table they
+    // touch, so Hibernate evicts only that table's cache region instead of the whole second-level cache
+    @Query(value = "SELECT COUNT(*) FROM vocabulary WHERE user_id = :userId AND id IN (:ids) AND learned = true", nativeQuery = true)
+    long countLearnedInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary"))
+    @Query(value = "UPDATE vocabulary SET learned = true, review_count = review_count + 1, last_reviewed_at = now(), updated_at = now() " +
+            "WHERE user_id = :userId AND id IN (:ids) AND learned = false", nativeQuery = true)
+    int markLearnedInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary"))
+    @Query(value = "UPDATE vocabulary SET learned = false, review_count = 0, last_reviewed_at = NULL, updated_at = now() " +
+            "WHERE user_id = :userId AND id IN (:ids)", nativeQuery = true)
+    int resetProgressInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_collection"))
+    @Query(value = "INSERT INTO vocabulary_collection (vocabulary_id, collection_id) " +
+            "SELECT v.id, :collectionId FROM vocabulary v WHERE v.user_id = :userId AND v.id IN (:ids) " +
+            "AND NOT EXISTS (SELECT 1 FROM vocabulary_collection vc WHERE vc.vocabulary_id = v.id AND vc.collection_id = :collectionId) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addToCollectionInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids, @Param("collectionId") Long collectionId);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_collection"))
+    @Query(value = "DELETE FROM vocabulary_collection WHERE collection_id = :collectionId " +
+            "AND vocabulary_id IN (SELECT id FROM vocabulary WHERE user_id = :userId AND id IN (:ids))", nativeQuery = true)
+    int removeFromCollectionInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids, @Param("collectionId") Long collectionId);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary_collection"))
+    @Query(value = "DELETE FROM vocabulary_collection " +
+            "WHERE vocabulary_id IN (SELECT id FROM vocabulary WHERE user_id = :userId AND id IN (:ids))", nativeQuery = true)
+    int deleteMembershipsInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "vocabulary"))
+    @Query(value = "DELETE FROM vocabulary WHERE user_id = :userId AND id IN (:ids)", nativeQuery = true)
+    int deleteInBulk(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+    
     // Legacy methods (keep for backward compatibility during migration)
     Optional<Vocabulary> findByWord(String word);
     List<Vocabulary> findByCategory(String category);
@@ -65,6 +125,20 @@ public interface VocabularyRepository extends JpaRepository<Vocabulary, Long> {
     @Query("SELECT v FROM Vocabulary v JOIN v.collections c WHERE c.id = :collectionId")
     List<Vocabulary> findByCollectionId(Long collectionId);
     
+    // Meanings of up to three other words of the collection, read from a random id onwards and wrapping
+    // around at the end; two short probes of idx_vocabulary_collection_collection whatever the collection's size
+    @Query(value = "WITH bounds AS (SELECT min(vocabulary_id) AS lo, max(vocabulary_id) AS hi " +
+            "FROM vocabulary_collection WHERE collection_id = :collectionId), " +
+            "pivot AS (SELECT lo + floor(random() * (hi - lo + 1)) AS id FROM bounds) " +
+            "SELECT d.meaning FROM (" +
+            "(SELECT 0 AS part, vc.vocabulary_id, v.meaning FROM vocabulary_collection vc JOIN vocabulary v ON v.id = vc.vocabulary_id " +
+            "WHERE vc.collection_id = :collectionId AND vc.vocabulary_id <> :vocabularyId AND vc.vocabulary_id >= (SELECT id FROM pivot) " +
+            "ORDER BY vc.vocabulary_id LIMIT 3) " +
+            "UNION ALL (SELECT 1 AS part, vc.vocabulary_id, v.meaning FROM vocabulary_collection vc JOIN vocabulary v ON v.id = vc.vocabulary_id " +
+            "WHERE vc.collection_id = :collectionId AND vc.vocabulary_id <> :vocabularyId AND vc.vocabulary_id < (SELECT id FROM pivot) " +
+            "ORDER BY vc.vocabulary_id LIMIT 3)) d ORDER BY d.part, d.vocabulary_id LIMIT 3", nativeQuery = true)
+    List<String> findDistractorMeanings(@Param("collectionId") Long collectionId, @Param("vocabularyId") Long vocabularyId);
+    
     @Query("SELECT v FROM Vocabulary v JOIN v.collections c WHERE c.id = :collectionId")
     Page<Vocabulary> findByCollectionId(Long collectionId, Pageable pageable);
     
@@ -77,10 +151,10 @@ public interface VocabularyRepository extends JpaRepository<Vocabulary, Long> {
     
     @Query("SELECT v FROM Vocabulary v ORDER BY RAND()")
     List<Vocabulary> findRandomWords();
-
+    
     @Query("SELECT v FROM Vocabulary v WHERE v.learned = true ORDER BY RAND()")
     List<Vocabulary> findRandomLearnedWords();
-
+    
     @Query("SELECT v FROM Vocabulary v WHERE v.learned = false ORDER BY RAND()")
     List<Vocabulary> findRandomUnlearnedWords();
     
@@ -0,0 +1,78 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.WordDifficulty;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface WordDifficultyRepository extends JpaRepository<WordDifficulty, String> {
+    
+    // Answer totals per normalized word for one id range of word_review_stats; run outside transactions by the job's workers
+    String AGGREGATE_CHUNK_SQL = "SELECT lower(trim(v.word)), sum(s.attempts), sum(s.correct) " +
+            "FROM word_review_stats s JOIN vocabulary v ON v.id = s.vocabulary_id " +
+            "WHERE s.id > :from AND s.id <= :to GROUP BY 1";
+    
+    // Used for JDBC batches: adds one wave of chunk totals to the staging table
+    String STAGE_SQL = "INSERT INTO word_difficulty_staging (word_key, attempts, correct) " +
+            "VALUES (:wordKey, :attempts, :correct) " +
+            "ON CONFLICT (word_key) DO UPDATE SET " +
+            "attempts = word_difficulty_staging.attempts + EXCLUDED.attempts, " +
+            "correct = word_difficulty_staging.correct + EXCLUDED.correct";
+    
+    @Query(value = "SELECT COALESCE(max(id), 0) FROM word_review_stats", nativeQuery = true)
+    long findMaxSourceId();
+    
+    @Query(value = "SELECT COALESCE(max(id), 0) FROM vocabulary", nativeQuery = true)
+    long findMaxVocabularyId();
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "word_difficulty_staging"))
+    @Query(value = "TRUNCATE word_difficulty_staging", nativeQuery = true)
+    void clearStaging();
+    
+    /**
+     * Difficulty from the word's error rate, smoothed toward the overall error rate by priorAttempts
+     * pseudo-answers, then spread over 1-5 by percentile so the scale is used evenly
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "word_difficulty"))
+    @Query(value = "INSERT INTO word_difficulty (word_key, attempts, correct, difficulty, calibrated_at) " +
+            "SELECT s.word_key, s.attempts, s.correct, " +
+            "CAST(round(CAST(1 + 4 * percent_rank() OVER (ORDER BY " +
+            "(s.attempts - s.correct + :priorAttempts * g.error_rate) / (s.attempts + :priorAttempts)) AS numeric), 1) " +
+            "AS double precision), :calibratedAt " +
+            "FROM word_difficulty_staging s, " +
+            "(SELECT CAST(sum(attempts) - sum(correct) AS double precision) / GREATEST(sum(attempts), 1) AS error_rate " +
+            "FROM word_difficulty_staging) g " +
+            "WHERE s.attempts >= :minAttempts " +
+            "ON CONFLICT (word_key) DO UPDATE SET attempts = EXCLUDED.attempts, correct = EXCLUDED.correct, " +
+            "difficulty = EXCLUDED.difficulty, calibrated_at = EXCLUDED.calibrated_at", nativeQuery = true)
+    int calibrate(@Param("priorAttempts") double priorAttempts, @Param("minAttempts") long minAttempts,
+                  @Param("calibratedAt") Instant calibratedAt);
+    
+    // Words that no longer have enough answers, or no longer exist
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "word_difficulty"))
+    @Query(value = "DELETE FROM word_difficulty WHERE calibrated_at < :calibratedAt", nativeQuery = true)
+    int deleteOlderThan(@Param("calibratedAt") Instant calibratedAt);
+    
+    // Vocabulary rows in (from, to] whose calibrated difficulty is out of date
+    @Query(value = "SELECT v.id FROM vocabulary v LEFT JOIN word_difficulty d ON d.word_key = lower(trim(v.word)) " +
+            "WHERE v.id > :from AND v.id <= :to AND v.calibrated_difficulty IS DISTINCT FROM d.difficulty " +
+            "ORDER BY v.id", nativeQuery = true)
+    List<Long> findStaleVocabularyIds(@Param("from") long from, @Param("to") long to);
+    
+    // Returns [id, user_id] of the updated rows
+    String WRITE_BACK_SQL = "UPDATE vocabulary v SET calibrated_difficulty = " +
+            "(SELECT d.difficulty FROM word_difficulty d WHERE d.word_key = lower(trim(v.word))) " +
+            "WHERE v.id IN (:ids) RETURNING v.id, v.user_id";
+}
@@ -0,0 +1,47 @@
+package com.vocabapp.repository;
+
+import com.vocabapp.model.WordReviewStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WordReviewStatsRepository extends JpaRepository<WordReviewStats, Long> {
+    
+    // Used for JDBC batches from AnalyticsService: create missing rows, then add to the locked ones.
+    // Only for words that still exist; the key-share lock makes a concurrent word delete wait for
+    // this batch, so its VocabularyDeleted handler sees and removes the row instead of orphaning it.
+    String CREATE_SQL = "INSERT INTO word_review_stats (user_id, vocabulary_id, attempts, correct) " +
+            "SELECT :userId, :vocabularyId, 0, 0 WHERE EXISTS " +
+            "(SELECT 1 FROM vocabulary WHERE id = :vocabularyId FOR KEY SHARE) " +
+            "ON CONFLICT (user_id, vocabulary_id) DO NOTHING";
+    String ADD_SQL = "UPDATE word_review_stats SET attempts = attempts + :attempts, correct = correct + :correct, " +
+            "last_answered_at = :lastAnsweredAt WHERE id = :id";
+    
+    /**
+     * Lock the rows of the given users and words, in id order. Returns [id, user_id, vocabulary_id,
+     * last_answered_at]; may include pairs that weren't asked for, which callers ignore.
+     */
+    @Query(value = "SELECT id, user_id, vocabulary_id, last_answered_at FROM word_review_stats " +
+            "WHERE user_id IN (:userIds) AND vocabulary_id IN (:vocabularyIds) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockForUpdate(@Param("userIds") Collection<Long> userIds, @Param("vocabularyIds") Collection<Long> vocabularyIds);
+    
+    // Keyset page over the (user_id, vocabulary_id) unique index
+    List<WordReviewStats> findByUserIdAndVocabularyIdGreaterThanOrderByVocabularyIdAsc(Long userId, Long after, Pageable pageable);
+    
+    List<WordReviewStats> findByUserIdAndVocabularyIdIn(Long userId, List<Long> vocabularyIds);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "word_review_stats"))
+    @Query(value = "DELETE FROM word_review_stats WHERE user_id = :userId AND vocabulary_id IN (:vocabularyIds)", nativeQuery = true)
+    int deleteByWords(@Param("userId") Long userId, @Param("vocabularyIds") List<Long> vocabularyIds);
+}
@@ -0,0 +1,203 @@
+package com.vocabapp.service;
+
+import com.vocabapp.model.RecallIntervalStats;
+import com.vocabapp.model.ReviewDailyStats;
+import com.vocabapp.model.User;
+import com.vocabapp.model.WordReviewStats;
+import com.vocabapp.repository.RecallIntervalStatsRepository;
+import com.vocabapp.repository.ReviewDailyStatsRepository;
+import com.vocabapp.repository.UserRepository;
+import com.vocabapp.repository.WordReviewStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Review analytics kept as rollups that AnswerSubmitted events are folded into as they are
+ * delivered: per-user daily accuracy, per-word attempt counts and recall rate by review interval.
+ * Every read is an index range scan over exactly the rows it returns.
+ * <p>
+ * Rollups start with the answers delivered after they were introduced; review_event holds
+ * the raw answers if they ever need to be rebuilt.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnalyticsService implements DomainEventHandler<DomainEvent.AnswerSubmitted> {
+    
+    private record WordKey(Long userId, Long vocabularyId) {
+    }
+    
+    private record Counts(int attempts, int correct) {
+        Counts add(boolean answeredCorrectly) {
+            return new Counts(attempts + 1, correct + (answeredCorrectly ? 1 : 0));
+        }
+    }
+    
+    private static final Counts NONE = new Counts(0, 0);
+    private static final Comparator<WordKey> WORD_ORDER =
+            Comparator.comparing(WordKey::userId).thenComparing(WordKey::vocabularyId);
+    
+    @Value("${app.analytics.max-days:366}")
+    private int maxDays;
+    
+    @Value("${app.analytics.max-words:500}")
+    private int maxWords;
+    
+    private final ReviewDailyStatsRepository dailyStatsRepository;
+    private final WordReviewStatsRepository wordStatsRepository;
+    private final RecallIntervalStatsRepository intervalStatsRepository;
+    private final UserRepository userRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    
+    @Override
+    public Class<DomainEvent.AnswerSubmitted> eventType() {
+        return DomainEvent.AnswerSubmitted.class;
+    }
+    
+    /**
+     * Fold a batch of answers into the rollups. The word rows are locked first, so a concurrent
+     * dispatcher can't measure an interval from a lastAnsweredAt this batch is about to move.
+     */
+    @Override
+    public void handle(List<DomainEvent.AnswerSubmitted> events) {
+        // Per word in answer order, so each interval is measured from the answer before it
+        Map<WordKey, List<DomainEvent.AnswerSubmitted>> byWord = new TreeMap<>(WORD_ORDER);
+        for (DomainEvent.AnswerSubmitted event : events) {
+            byWord.computeIfAbsent(new WordKey(event.userId(), event.vocabularyId()), k -> new ArrayList<>()).add(event);
+        }
+        byWord.values().forEach(answers -> answers.sort(Comparator.comparing(DomainEvent.AnswerSubmitted::answeredAt)));
+    
+        jdbcTemplate.batchUpdate(WordReviewStatsRepository.CREATE_SQL, byWord.keySet().stream()
+                .map(key -> new MapSqlParameterSource()
+                        .addValue("userId", key.userId())
+                        .addValue("vocabularyId", key.vocabularyId()))
+                .toArray(SqlParameterSource[]::new));
+        Map<WordKey, Object[]> locked = new HashMap<>();
+        List<Object[]> rows = wordStatsRepository.lockForUpdate(
+                new TreeSet<>(byWord.keySet().stream().map(WordKey::userId).toList()),
+                new TreeSet<>(byWord.keySet().stream().map(WordKey::vocabularyId).toList()));
+        for (Object[] row : rows) {
+            locked.put(new WordKey(((Number) row[1]).longValue(), ((Number) row[2]).longValue()), row);
+        }
+    
+        Map<Long, ZoneId> zones = new HashMap<>();
+        userRepository.findAllById(byWord.keySet().stream().map(WordKey::userId).distinct().toList())
+                .forEach(user -> zones.put(user.getId(), ZoneId.of(user.getTimezone())));
+    
+        List<SqlParameterSource> wordUpdates = new ArrayList<>(byWord.size());
+        Map<Long, Map<LocalDate, Counts>> daily = new TreeMap<>();
+        Map<Long, Map<Integer, Counts>> intervals = new TreeMap<>();
+        byWord.forEach((key, answers) -> {
+            // No row means the word was deleted: its answers still count in the daily rollup
+            Object[] row = locked.get(key);
+            LocalDateTime last = row == null || row[3] == null ? null : ((Timestamp) row[3]).toLocalDateTime();
+            Counts word = NONE;
+            ZoneId zone = zones.getOrDefault(key.userId(), ZoneId.of(User.DEFAULT_TIMEZONE));
+            for (DomainEvent.AnswerSubmitted answer : answers) {
+                word = word.add(answer.correct());
+                LocalDate day = answer.answeredAt().atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDate();
+                daily.computeIfAbsent(key.userId(), k -> new TreeMap<>()).merge(day, NONE.add(answer.correct()),
+                        (a, b) -> new Counts(a.attempts() + b.attempts(), a.correct() + b.correct()));
+                if (last != null) {
+                    int bucket = RecallIntervalStats.bucketOf(Duration.between(last, answer.answeredAt()).abs());
+                    intervals.computeIfAbsent(key.userId(), k -> new TreeMap<>()).merge(bucket, NONE.add(answer.correct()),
+                            (a, b) -> new Counts(a.attempts() + b.attempts(), a.correct() + b.correct()));
+                }
+                if (last == null || answer.answeredAt().isAfter(last)) {
+                    last = answer.answeredAt();
+                }
+            }
+            if (row != null) {
+                wordUpdates.add(new MapSqlParameterSource()
+                        .addValue("id", ((Number) row[0]).longValue())
+                        .addValue("attempts", word.attempts())
+                        .addValue("correct", word.correct())
+                        .addValue("lastAnsweredAt", last));
+            }
+        });
+    
+        jdbcTemplate.batchUpdate(WordReviewStatsRepository.ADD_SQL, wordUpdates.toArray(SqlParameterSource[]::new));
+        List<SqlParameterSource> dailyAdds = new ArrayList<>();
+        daily.forEach((userId, days) -> days.forEach((day, counts) -> dailyAdds.add(new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("day", day)
+                .addValue("attempts", counts.attempts())
+                .addValue("correct", counts.correct()))));
+        jdbcTemplate.batchUpdate(ReviewDailyStatsRepository.ADD_SQL, dailyAdds.toArray(SqlParameterSource[]::new));
+        List<SqlParameterSource> intervalAdds = new ArrayList<>();
+        intervals.forEach((userId, buckets) -> buckets.forEach((bucket, counts) -> intervalAdds.add(new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("bucket", bucket)
+                .addValue("attempts", counts.attempts())
+                .addValue("correct", counts.correct()))));
+        jdbcTemplate.batchUpdate(RecallIntervalStatsRepository.ADD_SQL, intervalAdds.toArray(SqlParameterSource[]::new));
+    }
+    
+    /**
+     * Word stats go with the word; the daily and interval rollups keep its history
+     */
+    @Transactional
+    public void forgetWords(Long userId, List<Long> vocabularyIds) {
+        if (!vocabularyIds.isEmpty()) {
+            wordStatsRepository.deleteByWords(userId, vocabularyIds);
+        }
+    }
+    
+    /**
+     * Daily accuracy; defaults to the 30 days ending today (user's local day)
+     */
+    @Transactional(readOnly = true)
+    public List<ReviewDailyStats> getDailyAccuracy(User user, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(ZoneId.of(user.getTimezone()));
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxDays) {
+            throw new RuntimeException("Range must not exceed " + maxDays + " days");
+        }
+        return dailyStatsRepository.findByUserIdAndDayBetweenOrderByDayAsc(user.getId(), start, end);
+    }
+    
+    /**
+     * Per-word accuracy, either for the given words or as a page in vocabulary id order after the cursor
+     */
+    @Transactional(readOnly = true)
+    public List<WordReviewStats> getWordAccuracy(User user, List<Long> vocabularyIds, long after, int limit) {
+        if (vocabularyIds != null && !vocabularyIds.isEmpty()) {
+            if (vocabularyIds.size() > maxWords) {
+                throw new RuntimeException("Too many ids: at most " + maxWords + " per request");
+            }
+            return wordStatsRepository.findByUserIdAndVocabularyIdIn(user.getId(), vocabularyIds);
+        }
+        if (limit < 1 || limit > maxWords) {
+            throw new RuntimeException("limit must be between 1 and " + maxWords);
+        }
+        return wordStatsRepository.findByUserIdAndVocabularyIdGreaterThanOrderByVocabularyIdAsc(
+                user.getId(), after, PageRequest.of(0, limit));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<RecallIntervalStats> getRetention(User user) {
+        return intervalStatsRepository.findByUserIdOrderByBucketAsc(user.getId());
+    }
+}
@@ -3,7 +3,6 @@ package com.vocabapp.service;
 import com.vocabapp.dto.AuthResponse;
 import com.vocabapp.dto.LoginRequest;
 import com.vocabapp.dto.RegisterRequest;
-import com.vocabapp.model.RefreshToken;
 import com.vocabapp.model.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -28,11 +27,11 @@ public class AuthenticationService {
         );
         
         String token = jwtService.generateToken(user);
-        RefreshToken refreshToken = refreshTokenService.createOrUpdateRefreshToken(user.getId());
+        String refreshToken = refreshTokenService.rotateRefreshToken(user.getId());
         
         return AuthResponse.builder()
                 .token(token)
-                .refreshToken(refreshToken.getToken())
+                .refreshToken(refreshToken)
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .userId(user.getId())
@@ -49,11 +48,11 @@ public class AuthenticationService {
         
         User user = (User) authentication.getPrincipal();
         String token = jwtService.generateToken(user);
-        RefreshToken refreshToken = refreshTokenService.createOrUpdateRefreshToken(user.getId());
+        String refreshToken = refreshTokenService.rotateRefreshToken(user.getId());
         
         return AuthResponse.builder()
                 .token(token)
-                .refreshToken(refreshToken.getToken())
+                .refreshToken(refreshToken)
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .userId(user.getId())
@@ -0,0 +1,193 @@
+package com.vocabapp.service;
+
+import com.vocabapp.dto.SyncResponseDTO;
+import com.vocabapp.dto.VocabularyDTO;
+import com.vocabapp.dto.VocabularyProgressDTO;
+import com.vocabapp.model.ChangeLogEntry;
+import com.vocabapp.model.Collection;
+import com.vocabapp.model.User;
+import com.vocabapp.model.Vocabulary;
+import com.vocabapp.repository.ChangeLogRepository;
+import com.vocabapp.repository.CollectionRepository;
+import com.vocabapp.repository.VocabularyProgressRepository;
+import com.vocabapp.repository.VocabularyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records changes to a user's vocabulary, collections, memberships and per-word progress in the change feed
+ * and serves them to GET /api/sync.
+ * <p>
+ * Callers record after DataVersionService.bump in the same transaction. The bump locks the
+ * user's version row until commit, so a user's sequence numbers become visible in order and a
+ * cursor never skips a change that commits late.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChangeFeedService {
+    
+    private final ChangeLogRepository changeLogRepository;
+    private final VocabularyRepository vocabularyRepository;
+    private final CollectionRepository collectionRepository;
+    private final VocabularyProgressRepository progressRepository;
+    private final UserProgressService userProgressService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    
+    public void recordVocabularies(User user, List<Long> vocabularyIds, boolean deleted) {
+        record(user.getId(), ChangeLogEntry.VOCABULARY, vocabularyIds, deleted);
+    }
+    
+    /**
+     * Vocabulary updates made by background jobs, which have user ids rather than users
+     */
+    public void recordVocabularies(Map<Long, List<Long>> vocabularyIdsByUser) {
+        vocabularyIdsByUser.forEach((userId, ids) -> record(userId, ChangeLogEntry.VOCABULARY, ids, false));
+    }
+    
+    public void recordCollection(User user, Long collectionId, boolean deleted) {
+        record(user.getId(), ChangeLogEntry.COLLECTION, List.of(collectionId), deleted);
+    }
+    
+    public void recordMemberships(User user, List<Long> vocabularyIds) {
+        record(user.getId(), ChangeLogEntry.MEMBERSHIP, vocabularyIds, false);
+    }
+    
+    public void recordProgress(User user, List<Long> progressIds) {
+        record(user.getId(), ChangeLogEntry.PROGRESS, progressIds, false);
+    }
+    
+    /**
+     * Everything that changed after the cursor, oldest first, at most limit feed entries
+     */
+    @Transactional(readOnly = true)
+    public SyncResponseDTO sync(User user, long since, int limit) {
+        List<Object[]> rows = changeLogRepository.findSince(user.getId(), since, limit);
+        long cursor = since;
+        List<Long> vocabularyIds = new ArrayList<>();
+        List<Long> collectionIds = new ArrayList<>();
+        List<Long> membershipIds = new ArrayList<>();
+        List<Long> progressIds = new ArrayList<>();
+        List<Long> deletedVocabularies = new ArrayList<>();
+        List<Long> deletedCollections = new ArrayList<>();
+        for (Object[] row : rows) {
+            String type = (String) row[0];
+            long id = ((Number) row[1]).longValue();
+            boolean deleted = (Boolean) row[2];
+            cursor = ((Number) row[3]).longValue();
+            switch (type) {
+                case ChangeLogEntry.VOCABULARY -> (deleted ? deletedVocabularies : vocabularyIds).add(id);
+                case ChangeLogEntry.COLLECTION -> (deleted ? deletedCollections : collectionIds).add(id);
+                case ChangeLogEntry.MEMBERSHIP -> membershipIds.add(id);
+                case ChangeLogEntry.PROGRESS -> progressIds.add(id);
+                default -> log.warn("Unknown change feed entity type {}", type);
+            }
+        }
+    
+        List<VocabularyDTO> vocabularies = vocabularyIds.isEmpty() ? List.of()
+                : vocabularyRepository.findByUserAndIdIn(user, vocabularyIds).stream().map(this::toDto).toList();
+        List<Collection> collections = collectionIds.isEmpty() ? List.of()
+                : collectionRepository.findByUserAndIdIn(user, collectionIds);
+        Map<Long, List<Long>> memberships = new LinkedHashMap<>();
+        if (!membershipIds.isEmpty()) {
+            membershipIds.forEach(id -> memberships.put(id, new ArrayList<>()));
+            for (Object[] row : vocabularyRepository.findMemberships(membershipIds)) {
+                memberships.get(((Number) row[0]).longValue()).add(((Number) row[1]).longValue());
+            }
+        }
+    
+        List<VocabularyProgressDTO> wordProgress = progressIds.isEmpty() ? List.of()
+                : progressRepository.findForSync(user.getId(), progressIds).stream().map(this::toProgressDto).toList();
+    
+        return new SyncResponseDTO(cursor, rows.size() == limit, vocabularies, collections, memberships,
+                deletedVocabularies, deletedCollections, wordProgress, userProgressService.getProgress(user));
+    }
+    
+    /**
+     * Seed the feed with everything that existed before it, the first time it is deployed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!changeLogRepository.hasEntries()) {
+            int collections = changeLogRepository.backfillCollections();
+            int vocabularies = changeLogRepository.backfillVocabularies();
+            int memberships = changeLogRepository.backfillMemberships();
+            log.info("Seeded change feed: {} collections, {} vocabularies, {} memberships", collections, vocabularies, memberships);
+        }
+        // Per-word progress joined the feed later, so it is seeded on its own
+        if (!changeLogRepository.hasEntries(ChangeLogEntry.PROGRESS)) {
+            int progress = changeLogRepository.backfillProgress();
+            if (progress > 0) {
+                log.info("Seeded change feed: {} progress rows", progress);
+            }
+        }
+    }
+    
+    private void record(Long userId, String type, List<Long> ids, boolean deleted) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        // Sorted, so concurrent batches take the unique-index locks in the same order
+        SqlParameterSource[] batch = ids.stream()
+                .sorted()
+                .map(id -> new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("type", type)
+                        .addValue("entityId", id)
+                        .addValue("deleted", deleted))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(ChangeLogRepository.RECORD_SQL, batch);
+    }
+    
+    private VocabularyProgressDTO toProgressDto(Object[] row) {
+        return new VocabularyProgressDTO(
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                (Boolean) row[3],
+                (String) row[4],
+                row[5] == null ? null : ((Number) row[5]).intValue(),
+                toLocalDateTime(row[6]),
+                toLocalDateTime(row[7]),
+                toLocalDateTime(row[8]));
+    }
+    
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value == null ? null : ((Timestamp) value).toLocalDateTime();
+    }
+    
+    private VocabularyDTO toDto(Vocabulary vocab) {
+        VocabularyDTO dto = new VocabularyDTO();
+        dto.setId(vocab.getId());
+        dto.setWord(vocab.getWord());
+        dto.setMeaning(vocab.getMeaning());
+        dto.setPhonetic(vocab.getPhonetic());
+        dto.setWordType(vocab.getWordType());
+        dto.setExample(vocab.getExample());
+        dto.setSynonym(vocab.getSynonym());
+        dto.setAntonym(vocab.getAntonym());
+        dto.setCategory(vocab.getCategory());
+        dto.setDifficulty(vocab.getDifficulty());
+        dto.setCalibratedDifficulty(vocab.getCalibratedDifficulty());
+        dto.setLearned(vocab.getLearned());
+        dto.setReviewCount(vocab.getReviewCount());
+        dto.setLastReviewedAt(vocab.getLastReviewedAt());
+        dto.setCreatedAt(vocab.getCreatedAt());
+        dto.setUpdatedAt(vocab.getUpdatedAt());
+        return dto;
+    }
+}
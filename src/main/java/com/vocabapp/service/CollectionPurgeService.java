@@ -0,0 +1,78 @@
+package com.vocabapp.service;
+
+import com.vocabapp.repository.CollectionRepository;
+import com.vocabapp.repository.VocabularyProgressRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CollectionPurgeService {
+    
+    @Value("${app.collections.purge-chunk-size:1000}")
+    private int chunkSize;
+    
+    private final CollectionRepository collectionRepository;
+    private final VocabularyProgressRepository progressRepository;
+    private final DataVersionService dataVersionService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    
+    /**
+     * Finish purges of collections still marked deleting, e.g. after a restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        for (Object[] row : collectionRepository.findDeleting()) {
+            Long collectionId = ((Number) row[0]).longValue();
+            Long ownerId = ((Number) row[1]).longValue();
+            log.info("Resuming purge of collection {}", collectionId);
+            taskExecutor.execute(() -> doPurge(collectionId, ownerId));
+        }
+    }
+    
+    /**
+     * Delete a large collection, already marked deleting, in the background. Every chunk
+     * runs in its own short transaction so the purge never holds locks on the whole collection.
+     */
+    @Async
+    public void purge(Long collectionId, Long ownerId) {
+        doPurge(collectionId, ownerId);
+    }
+    
+    private void doPurge(Long collectionId, Long ownerId) {
+        long progressRows = 0;
+        int deleted;
+        do {
+            deleted = progressRepository.deleteChunkByCollectionId(collectionId, chunkSize);
+            progressRows += deleted;
+        } while (deleted == chunkSize);
+    
+        long memberships = 0;
+        do {
+            deleted = collectionRepository.deleteMembershipChunkByCollectionId(collectionId, chunkSize);
+            memberships += deleted;
+        } while (deleted == chunkSize);
+    
+        // Rows added by requests that read the collection before it was marked go in the final transaction
+        transactionTemplate.executeWithoutResult(status -> {
+            collectionRepository.lockById(collectionId);
+            progressRepository.deleteByCollectionIdInBulk(collectionId);
+            collectionRepository.deleteMembershipsByCollectionId(collectionId);
+            collectionRepository.deleteByIdInBulk(collectionId);
+            // The owner's word list no longer shows the collection
+            dataVersionService.bump(List.of(ownerId));
+        });
+        log.info("Purged collection {} ({} memberships, {} progress rows)", collectionId, memberships, progressRows);
+    }
+}
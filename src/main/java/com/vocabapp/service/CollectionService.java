@@ -1,16 +1,23 @@
 package com.vocabapp.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vocabapp.model.Collection;
 import com.vocabapp.model.User;
 import com.vocabapp.model.Vocabulary;
 import com.vocabapp.repository.CollectionRepository;
+import com.vocabapp.repository.VocabularyProgressRepository;
 import com.vocabapp.repository.VocabularyRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +25,20 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CollectionService {
     
+    // Collections with more members than this are purged in the background
+    @Value("${app.collections.async-purge-threshold:5000}")
+    private long asyncPurgeThreshold;
+    
     private final CollectionRepository collectionRepository;
     private final VocabularyRepository vocabularyRepository;
+    private final VocabularyProgressRepository progressRepository;
+    private final CollectionPurgeService collectionPurgeService;
+    private final UserProgressService userProgressService;
+    private final CollectionSnapshotStore snapshotStore;
+    private final DataVersionService dataVersionService;
+    private final ChangeFeedService changeFeedService;
+    private final RatingService ratingService;
+    private final ObjectMapper objectMapper;
     
     // Get all collections for a user
     public List<Collection> getAllCollections(User user) {
@@ -39,7 +58,10 @@ public class CollectionService {
     @Transactional
     public Collection createCollection(Collection collection, User user) {
         collection.setUser(user);
-        return collectionRepository.save(collection);
+        Collection saved = collectionRepository.save(collection);
+        dataVersionService.bump(user);
+        changeFeedService.recordCollection(user, saved.getId(), false);
+        return saved;
     }
     
     // Update collection
@@ -54,24 +76,43 @@ public class CollectionService {
             collection.setIsPublic(collectionDetails.getIsPublic());
         }
         
-        return collectionRepository.save(collection);
+        Collection saved = collectionRepository.saveAndFlush(collection);
+        dataVersionService.bump(user);
+        changeFeedService.recordCollection(user, saved.getId(), false);
+        return saved;
     }
     
     // Delete collection
-    // Delete collection
+    // Returns true if the collection was deleted immediately, false if a background purge was scheduled
     @Transactional
-    public void deleteCollection(Long id, User user) {
-        Collection collection = collectionRepository.findByIdAndUser(id, user)
+    public boolean deleteCollection(Long id, User user) {
+        collectionRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new RuntimeException("Collection not found or access denied"));
         
-        // Remove collection from all vocabularies to avoid foreign key constraint violation
-        List<Vocabulary> vocabularies = vocabularyRepository.findByCollectionId(id);
-        for (Vocabulary vocab : vocabularies) {
-            vocab.getCollections().remove(collection);
-            vocabularyRepository.save(vocab);
+        if (vocabularyRepository.countByCollectionId(id) > asyncPurgeThreshold) {
+            // The flag hides the collection right away and makes a second DELETE a 404
+            if (collectionRepository.markDeleting(id, user.getId()) == 0) {
+                throw new RuntimeException("Collection not found or access denied");
+            }
+            Long ownerId = user.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    collectionPurgeService.purge(id, ownerId);
+                }
+            });
+            dataVersionService.bump(user);
+            changeFeedService.recordCollection(user, id, true);
+            return false;
         }
         
-        collectionRepository.delete(collection);
+        // Set-based deletes: progress rows and memberships first to satisfy the foreign keys
+        progressRepository.deleteByCollectionIdInBulk(id);
+        collectionRepository.deleteMembershipsByCollectionId(id);
+        collectionRepository.deleteByIdInBulk(id);
+        dataVersionService.bump(user);
+        changeFeedService.recordCollection(user, id, true);
+        return true;
     }
     
     // Toggle collection visibility
@@ -80,7 +121,10 @@ public class CollectionService {
         Collection collection = collectionRepository.findByIdAndUser(id, user)
                 .orElseThrow(() -> new RuntimeException("Collection not found or access denied"));
         collection.setIsPublic(!collection.getIsPublic());
-        return collectionRepository.save(collection);
+        Collection saved = collectionRepository.saveAndFlush(collection);
+        dataVersionService.bump(user);
+        changeFeedService.recordCollection(user, saved.getId(), false);
+        return saved;
     }
     
     // Public collection search
@@ -112,6 +156,9 @@ public class CollectionService {
         
         // Copy all vocabularies from source collection
         List<Vocabulary> sourceVocabs = vocabularyRepository.findByCollectionId(sourceCollectionId);
+        int created = 0;
+        List<Long> createdIds = new ArrayList<>();
+        List<Long> memberIds = new ArrayList<>();
         for (Vocabulary sourceVocab : sourceVocabs) {
             // Check if user already has this word
             Optional<Vocabulary> existingVocab = vocabularyRepository.findByWordAndUser(sourceVocab.getWord(), targetUser);
@@ -121,6 +168,7 @@ public class CollectionService {
                 Vocabulary vocab = existingVocab.get();
                 vocab.getCollections().add(savedCollection);
                 vocabularyRepository.save(vocab);
+                memberIds.add(vocab.getId());
             } else {
                 // Create new vocabulary
                 Vocabulary newVocab = new Vocabulary();
@@ -139,22 +187,62 @@ public class CollectionService {
                 newVocab.getCollections().add(savedCollection);
                 
                 vocabularyRepository.save(newVocab);
+                created++;
+                createdIds.add(newVocab.getId());
+                memberIds.add(newVocab.getId());
             }
         }
         
+        userProgressService.adjustWordCounts(targetUser, created, 0);
+        vocabularyRepository.flush();
+        if (!memberIds.isEmpty()) {
+            progressRepository.initializeForVocabularies(memberIds, ratingService.getInitialRating());
+        }
+        dataVersionService.bump(targetUser);
+        changeFeedService.recordCollection(targetUser, savedCollection.getId(), false);
+        changeFeedService.recordVocabularies(targetUser, createdIds, false);
+        changeFeedService.recordMemberships(targetUser, memberIds);
         return savedCollection;
     }
 
     // Get vocabularies of a collection (if public or owned by user)
     public List<Vocabulary> getCollectionVocabularies(Long collectionId, User user) {
+        requireReadable(collectionId, user);
+        return vocabularyRepository.findByCollectionId(collectionId);
+    }
+    
+    // Same as getCollectionVocabularies, serialized, for a collection already checked with getReadableCollection
+    @Transactional(readOnly = true)
+    public byte[] getCollectionVocabulariesJson(Collection collection) {
+        return toJson(vocabularyRepository.findByCollectionId(collection.getId()));
+    }
+    
+    // Pre-rendered files of a public collection's version as loaded by getReadableCollection
+    @Transactional(readOnly = true)
+    public CollectionSnapshotStore.Snapshot getSnapshot(Collection collection) {
+        return snapshotStore.get(collection, () -> vocabularyRepository.findByCollectionId(collection.getId()));
+    }
+    
+    public Collection getReadableCollection(Long collectionId, User user) {
+        return requireReadable(collectionId, user);
+    }
+    
+    private Collection requireReadable(Long collectionId, User user) {
         Collection collection = collectionRepository.findById(collectionId)
                 .orElseThrow(() -> new RuntimeException("Collection not found"));
         
         if (!collection.getIsPublic() && !collection.getUser().getId().equals(user.getId())) {
             throw new RuntimeException("Access denied: Collection is private and does not belong to you");
         }
+        return collection;
+    }
         
-        return vocabularyRepository.findByCollectionId(collectionId);
+    private byte[] toJson(List<Vocabulary> vocabularies) {
+        try {
+            return objectMapper.writeValueAsBytes(vocabularies);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize collection", e);
+        }
     }
     
     // Legacy methods (for backward compatibility)
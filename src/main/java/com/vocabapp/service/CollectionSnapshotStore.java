@@ -0,0 +1,150 @@
+package com.vocabapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vocabapp.model.Collection;
+import com.vocabapp.model.Vocabulary;
+import com.vocabapp.repository.CollectionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-rendered vocabulary lists of public collections, one immutable identity/gzip file pair per
+ * collection version. A version is rendered by the first request that needs it (concurrent requests
+ * share the render) and reused across restarts; superseded files are garbage-collected.
+ */
+@Slf4j
+@Component
+public class CollectionSnapshotStore {
+    
+    public record Snapshot(long collectionId, long version, Path identity, long identityLength, Path gzip, long gzipLength) {
+    }
+    
+    private record Key(long collectionId, long version) {
+    }
+    
+    private static final Pattern FILE_NAME = Pattern.compile("collection-(\\d+)-v(\\d+)\\.json(\\.gz)?");
+    
+    private final Path directory;
+    private final Duration gcGrace;
+    private final ObjectMapper objectMapper;
+    private final CollectionRepository collectionRepository;
+    private final Cache<Key, Snapshot> snapshots;
+    
+    public CollectionSnapshotStore(@Value("${app.collections.snapshot-dir:${java.io.tmpdir}/vocab-collection-snapshots}") String directory,
+                                   @Value("${app.collections.snapshot-gc-grace:PT10M}") Duration gcGrace,
+                                   ObjectMapper objectMapper,
+                                   CollectionRepository collectionRepository) throws IOException {
+        this.directory = Files.createDirectories(Paths.get(directory)).toRealPath();
+        this.gcGrace = gcGrace;
+        this.objectMapper = objectMapper;
+        this.collectionRepository = collectionRepository;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .build();
+    }
+    
+    /**
+     * The snapshot of the collection's current version, rendering it first if needed
+     */
+    public Snapshot get(Collection collection, Supplier<List<Vocabulary>> loader) {
+        Key key = new Key(collection.getId(), collection.getContentVersion());
+        Snapshot snapshot = snapshots.get(key, k -> render(k, loader));
+        if (!Files.exists(snapshot.identity()) || !Files.exists(snapshot.gzip())) {
+            // Removed from disk behind our back; render again
+            snapshots.invalidate(key);
+            snapshot = snapshots.get(key, k -> render(k, loader));
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Delete files of versions that are no longer current, or of collections that are no longer public.
+     * Files younger than the grace period are kept so in-flight transfers of the previous version finish.
+     */
+    @Scheduled(fixedDelayString = "${app.collections.snapshot-gc-interval-ms:3600000}")
+    public void collectGarbage() {
+        Map<Long, Long> current = new HashMap<>();
+        for (Object[] row : collectionRepository.findPublicContentVersions()) {
+            current.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        Instant cutoff = Instant.now().minus(gcGrace);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long collectionId = Long.parseLong(matcher.group(1));
+                long version = Long.parseLong(matcher.group(2));
+                if (Long.valueOf(version).equals(current.get(collectionId))
+                        || Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                snapshots.invalidate(new Key(collectionId, version));
+                if (Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Collection snapshot cleanup failed", e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} stale collection snapshot files", deleted);
+        }
+    }
+    
+    private Snapshot render(Key key, Supplier<List<Vocabulary>> loader) {
+        String baseName = "collection-" + key.collectionId() + "-v" + key.version() + ".json";
+        Path identity = directory.resolve(baseName);
+        Path gzip = directory.resolve(baseName + ".gz");
+        try {
+            // Versions are immutable, so files left by an earlier run can be reused as they are
+            if (!Files.exists(identity) || !Files.exists(gzip)) {
+                Path identityTemp = Files.createTempFile(directory, baseName, ".tmp");
+                Path gzipTemp = Files.createTempFile(directory, baseName + ".gz", ".tmp");
+                try {
+                    try (OutputStream out = Files.newOutputStream(identityTemp)) {
+                        objectMapper.writeValue(out, loader.get());
+                    }
+                    try (InputStream in = Files.newInputStream(identityTemp);
+                         OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipTemp))) {
+                        in.transferTo(out);
+                    }
+                    // The identity file appears last, so its presence means the pair is complete
+                    Files.move(gzipTemp, gzip, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(identityTemp, identity, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(identityTemp);
+                    Files.deleteIfExists(gzipTemp);
+                }
+            }
+            return new Snapshot(key.collectionId(), key.version(), identity, Files.size(identity), gzip, Files.size(gzip));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot of collection " + key.collectionId(), e);
+        }
+    }
+}
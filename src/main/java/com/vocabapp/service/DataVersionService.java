@@ -0,0 +1,46 @@
+package com.vocabapp.service;
+
+import com.vocabapp.model.User;
+import com.vocabapp.repository.UserDataVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Per-user data versions behind the ETags of the vocabulary list, collections and progress
+ * endpoints. Write paths bump the version at the end of their transaction, after their
+ * other row locks, so concurrent writers always lock in the same order.
+ */
+@Service
+@RequiredArgsConstructor
+public class DataVersionService {
+    
+    private final UserDataVersionRepository userDataVersionRepository;
+    
+    public void bump(User user) {
+        userDataVersionRepository.bump(List.of(user.getId()));
+    }
+    
+    public void bump(Collection<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            userDataVersionRepository.bump(userIds);
+        }
+    }
+    
+    public void bumpAll() {
+        userDataVersionRepository.bumpAll();
+    }
+    
+    public long version(User user) {
+        return userDataVersionRepository.findVersion(user.getId()).orElse(0L);
+    }
+    
+    /**
+     * Strong ETag for a response that depends only on the user's data
+     */
+    public String etag(User user) {
+        return "\"u" + user.getId() + "-" + version(user) + "\"";
+    }
+}
@@ -0,0 +1,255 @@
+package com.vocabapp.service;
+
+import com.vocabapp.model.BatchJobCheckpoint;
+import com.vocabapp.repository.BatchJobCheckpointRepository;
+import com.vocabapp.repository.CollectionRepository;
+import com.vocabapp.repository.WordDifficultyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly calibration of word difficulty from every user's answers (word_review_stats),
+ * grouped by normalized word. Three phases, each checkpointed in batch_job_checkpoint:
+ * <ol>
+ * <li>AGGREGATE: id-range chunks of word_review_stats are summed per word by a fork/join pool,
+ * a wave of chunks at a time; each wave's totals are added to word_difficulty_staging in the
+ * same transaction that advances the checkpoint.</li>
+ * <li>CALIBRATE: word_difficulty is rebuilt from the staged totals in one statement.</li>
+ * <li>WRITE_BACK: Vocabulary.calibratedDifficulty is updated in id-range chunks, touching only
+ * rows whose value changed, with the same cache, ETag and change-feed bookkeeping as any
+ * other vocabulary write.</li>
+ * </ol>
+ * An interrupted run resumes from its last committed chunk on the next startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DifficultyCalibrationJob {
+    
+    private static final String JOB_NAME = "difficulty-calibration";
+    private static final String AGGREGATE = "AGGREGATE";
+    private static final String CALIBRATE = "CALIBRATE";
+    private static final String WRITE_BACK = "WRITE_BACK";
+    private static final String DONE = "DONE";
+    
+    @Value("${app.difficulty.chunk-size:50000}")
+    private int chunkSize;
+    
+    @Value("${app.difficulty.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${app.difficulty.write-back-chunk-size:5000}")
+    private int writeBackChunkSize;
+    
+    @Value("${app.difficulty.prior-attempts:20}")
+    private double priorAttempts;
+    
+    @Value("${app.difficulty.min-attempts:5}")
+    private long minAttempts;
+    
+    private final BatchJobCheckpointRepository checkpointRepository;
+    private final WordDifficultyRepository wordDifficultyRepository;
+    private final CollectionRepository collectionRepository;
+    private final DataVersionService dataVersionService;
+    private final ChangeFeedService changeFeedService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        checkpointRepository.findById(JOB_NAME)
+                .filter(checkpoint -> !DONE.equals(checkpoint.getPhase()))
+                .ifPresent(checkpoint -> {
+                    log.info("Resuming difficulty calibration in phase {} after id {}", checkpoint.getPhase(), checkpoint.getLastId());
+                    taskExecutor.execute(this::run);
+                });
+    }
+    
+    // A run takes minutes; it must not hold one of the scheduler's threads for that long
+    @Scheduled(cron = "${app.difficulty.cron:0 0 2 * * *}", zone = "${app.leaderboard.zone:Asia/Ho_Chi_Minh}")
+    public void schedule() {
+        taskExecutor.execute(this::run);
+    }
+    
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            BatchJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                    .filter(existing -> !DONE.equals(existing.getPhase()))
+                    .orElseGet(this::start);
+            if (AGGREGATE.equals(checkpoint.getPhase())) {
+                checkpoint = aggregate(checkpoint);
+            }
+            if (CALIBRATE.equals(checkpoint.getPhase())) {
+                checkpoint = calibrate(checkpoint);
+            }
+            if (WRITE_BACK.equals(checkpoint.getPhase())) {
+                writeBack(checkpoint);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private BatchJobCheckpoint start() {
+        return transactionTemplate.execute(status -> {
+            wordDifficultyRepository.clearStaging();
+            Instant now = Instant.now();
+            return checkpointRepository.save(new BatchJobCheckpoint(JOB_NAME, AGGREGATE, 0L,
+                    wordDifficultyRepository.findMaxSourceId(), now, now));
+        });
+    }
+    
+    private BatchJobCheckpoint aggregate(BatchJobCheckpoint checkpoint) {
+        long started = System.nanoTime();
+        long waveSize = (long) chunkSize * parallelism * 2;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (checkpoint.getLastId() < checkpoint.getMaxId()) {
+                long from = checkpoint.getLastId();
+                long to = Math.min(checkpoint.getMaxId(), from + waveSize);
+                Map<String, long[]> totals = pool.invoke(new AggregateTask(from, to));
+                BatchJobCheckpoint current = checkpoint;
+                checkpoint = transactionTemplate.execute(status -> {
+                    stage(totals);
+                    return advance(current, to);
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        log.info("Difficulty calibration aggregated ids up to {} in {} ms",
+                checkpoint.getMaxId(), (System.nanoTime() - started) / 1_000_000);
+        return advancePhase(checkpoint, CALIBRATE, 0L);
+    }
+    
+    private BatchJobCheckpoint calibrate(BatchJobCheckpoint checkpoint) {
+        return transactionTemplate.execute(status -> {
+            int calibrated = wordDifficultyRepository.calibrate(priorAttempts, minAttempts, checkpoint.getRunStartedAt());
+            int dropped = wordDifficultyRepository.deleteOlderThan(checkpoint.getRunStartedAt());
+            log.info("Calibrated difficulty of {} words, dropped {}", calibrated, dropped);
+            checkpoint.setPhase(WRITE_BACK);
+            checkpoint.setLastId(0L);
+            checkpoint.setMaxId(wordDifficultyRepository.findMaxVocabularyId());
+            checkpoint.setUpdatedAt(Instant.now());
+            return checkpointRepository.save(checkpoint);
+        });
+    }
+    
+    private void writeBack(BatchJobCheckpoint checkpoint) {
+        long updated = 0;
+        while (checkpoint.getLastId() < checkpoint.getMaxId()) {
+            long from = checkpoint.getLastId();
+            long to = Math.min(checkpoint.getMaxId(), from + writeBackChunkSize);
+            BatchJobCheckpoint current = checkpoint;
+            List<Object[]> changed = new ArrayList<>();
+            checkpoint = transactionTemplate.execute(status -> {
+                changed.addAll(writeBackChunk(from, to));
+                return advance(current, to);
+            });
+            updated += changed.size();
+        }
+        advancePhase(checkpoint, DONE, checkpoint.getLastId());
+        log.info("Difficulty calibration updated {} vocabulary rows", updated);
+    }
+    
+    // Same lock order as the vocabulary write paths: collections, vocabulary rows, data versions, change feed
+    private List<Object[]> writeBackChunk(long from, long to) {
+        List<Long> stale = wordDifficultyRepository.findStaleVocabularyIds(from, to);
+        if (stale.isEmpty()) {
+            return List.of();
+        }
+        collectionRepository.bumpContentVersionsForAnyVocabularies(stale);
+        List<Object[]> rows = jdbcTemplate.query(WordDifficultyRepository.WRITE_BACK_SQL,
+                new MapSqlParameterSource("ids", stale),
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2)});
+        Map<Long, List<Long>> idsByUser = new TreeMap<>();
+        rows.forEach(row -> idsByUser.computeIfAbsent((Long) row[1], k -> new ArrayList<>()).add((Long) row[0]));
+        dataVersionService.bump(idsByUser.keySet());
+        changeFeedService.recordVocabularies(idsByUser);
+        return rows;
+    }
+    
+    private void stage(Map<String, long[]> totals) {
+        SqlParameterSource[] batch = new TreeMap<>(totals).entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("wordKey", entry.getKey())
+                        .addValue("attempts", entry.getValue()[0])
+                        .addValue("correct", entry.getValue()[1]))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(WordDifficultyRepository.STAGE_SQL, batch);
+    }
+    
+    private BatchJobCheckpoint advance(BatchJobCheckpoint checkpoint, long lastId) {
+        checkpoint.setLastId(lastId);
+        checkpoint.setUpdatedAt(Instant.now());
+        return checkpointRepository.save(checkpoint);
+    }
+    
+    private BatchJobCheckpoint advancePhase(BatchJobCheckpoint checkpoint, String phase, long lastId) {
+        checkpoint.setPhase(phase);
+        return transactionTemplate.execute(status -> advance(checkpoint, lastId));
+    }
+    
+    /**
+     * Totals per normalized word for ids in (from, to], split in halves down to chunk-size ranges.
+     * Each leaf is one GROUP BY query on its own connection.
+     */
+    private final class AggregateTask extends RecursiveTask<Map<String, long[]>> {
+    
+        private static final long serialVersionUID = 1L;
+    
+        private final long from;
+        private final long to;
+    
+        AggregateTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    
+        @Override
+        protected Map<String, long[]> compute() {
+            if (to - from <= chunkSize) {
+                Map<String, long[]> totals = new HashMap<>();
+                jdbcTemplate.query(WordDifficultyRepository.AGGREGATE_CHUNK_SQL,
+                        new MapSqlParameterSource().addValue("from", from).addValue("to", to),
+                        rs -> {
+                            totals.put(rs.getString(1), new long[]{rs.getLong(2), rs.getLong(3)});
+                        });
+                return totals;
+            }
+            long middle = from + (to - from) / 2;
+            AggregateTask left = new AggregateTask(from, middle);
+            left.fork();
+            Map<String, long[]> totals = new AggregateTask(middle, to).compute();
+            left.join().forEach((word, counts) -> totals.merge(word, counts,
+                    (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]}));
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.vocabapp.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Events raised by the write paths and delivered through the transactional outbox
+ * (OutboxService, OutboxDispatcher). They are stored as JSON under their simple class name,
+ * so renaming a record or one of its components needs the pending rows drained first.
+ */
+public sealed interface DomainEvent permits DomainEvent.WordLearned, DomainEvent.AnswerSubmitted, DomainEvent.VocabularyDeleted {
+    
+    Long userId();
+    
+    /**
+     * Words that just became learned; count is above one for bulk actions, which leave vocabularyId null
+     */
+    record WordLearned(Long userId, Long vocabularyId, int count) implements DomainEvent {
+    }
+    
+    /**
+     * One quiz answer; latencyMs is what the client reported and may be null
+     */
+    record AnswerSubmitted(Long userId, Long vocabularyId, Long collectionId, boolean typingTest, boolean correct,
+                           Integer latencyMs, LocalDateTime answeredAt) implements DomainEvent {
+    }
+    
+    record VocabularyDeleted(Long userId, List<Long> vocabularyIds) implements DomainEvent {
+    }
+}
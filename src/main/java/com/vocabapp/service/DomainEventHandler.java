@@ -0,0 +1,21 @@
+package com.vocabapp.service;
+
+import java.util.List;
+
+/**
+ * In-process consumer of one type of outbox event. Delivery is at least once, in batches.
+ * <p>
+ * Handlers run inside the dispatcher's transaction, which also deletes the delivered events,
+ * so their database writes and the acknowledgement commit or roll back together and a
+ * redelivered event never applies twice. Anything outside the database must be deferred to
+ * after commit or be safe to repeat: when a batch fails, its events are delivered again one by
+ * one, so an in-memory update made directly in handle() would count them twice. The in-memory
+ * leaderboards are only ever changed through LeaderboardService, which registers its updates
+ * as afterCommit synchronizations on the dispatcher's transaction.
+ */
+public interface DomainEventHandler<E extends DomainEvent> {
+    
+    Class<E> eventType();
+    
+    void handle(List<E> events);
+}
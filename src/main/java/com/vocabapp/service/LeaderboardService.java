@@ -0,0 +1,184 @@
+package com.vocabapp.service;
+
+import com.vocabapp.dto.LeaderboardEntryDTO;
+import com.vocabapp.model.User;
+import com.vocabapp.repository.LeaderboardSnapshotRepository;
+import com.vocabapp.repository.UserProgressRepository;
+import com.vocabapp.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Weekly words-learned and streak leaderboards kept in memory and updated incrementally
+ * from the progress write paths, so ranks and pages never need an ORDER BY over user_progress.
+ * <p>
+ * The streak board is reloaded from user_progress on startup. The weekly board is reloaded from
+ * its latest snapshot, so a crash loses at most one snapshot interval of weekly scores.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+    
+    public static final String WEEKLY_WORDS = "weekly-words";
+    public static final String STREAK = "streak";
+    
+    @Value("${app.leaderboard.zone:Asia/Ho_Chi_Minh}")
+    private String zone;
+    
+    private final UserProgressRepository userProgressRepository;
+    private final LeaderboardSnapshotRepository snapshotRepository;
+    private final UserRepository userRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    
+    private final RankedScoreSet weeklyWords = new RankedScoreSet();
+    private final RankedScoreSet streaks = new RankedScoreSet();
+    private volatile LocalDate weekStart;
+    // Snapshots and the weekly reset hold it, so the board is never persisted under another week's start
+    private final ReentrantLock weekLock = new ReentrantLock();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        weekStart = currentWeekStart();
+        for (Object[] row : snapshotRepository.findScores(WEEKLY_WORDS, weekStart)) {
+            weeklyWords.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        for (Object[] row : userProgressRepository.findActiveStreaks()) {
+            streaks.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        log.info("Loaded leaderboards: {} weekly, {} streaks", weeklyWords.size(), streaks.size());
+    }
+    
+    // Updates are applied once the surrounding transaction commits, so rolled-back work never counts
+    
+    public void recordWordsLearned(Long userId, int count) {
+        if (count > 0) {
+            afterCommit(() -> weeklyWords.add(userId, count));
+        }
+    }
+    
+    public void recordStreak(Long userId, int streakDays) {
+        afterCommit(() -> streaks.put(userId, streakDays));
+    }
+    
+    /**
+     * One page of a board, plus the caller's own position
+     */
+    public Map<String, Object> getPage(String board, int page, int size, User user) {
+        RankedScoreSet set = board(board);
+        List<RankedScoreSet.Entry> entries = set.page(page * size, size);
+        Map<Long, String> usernames = userRepository.findAllById(entries.stream().map(RankedScoreSet.Entry::userId).toList())
+                .stream().collect(Collectors.toMap(User::getId, User::getUsername));
+    
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("board", board);
+        if (WEEKLY_WORDS.equals(board)) {
+            response.put("weekStart", weekStart);
+        }
+        response.put("total", set.size());
+        response.put("entries", entries.stream()
+                .map(e -> new LeaderboardEntryDTO(e.rank(), e.userId(), usernames.get(e.userId()), e.score()))
+                .toList());
+        RankedScoreSet.Entry me = set.find(user.getId());
+        response.put("me", me == null ? null : new LeaderboardEntryDTO(me.rank(), user.getId(), user.getUsername(), me.score()));
+        return response;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.leaderboard.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        weekLock.lock();
+        try {
+            persist(weekStart, weeklyWords.page(0, weeklyWords.size()));
+        } finally {
+            weekLock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+    
+    /**
+     * Close the week: its final standings stay in leaderboard_snapshot and a new board starts empty
+     */
+    @Scheduled(cron = "${app.leaderboard.weekly-reset-cron:0 0 0 * * MON}", zone = "${app.leaderboard.zone:Asia/Ho_Chi_Minh}")
+    public void weeklyReset() {
+        LocalDate finishedWeek;
+        List<RankedScoreSet.Entry> standings;
+        weekLock.lock();
+        try {
+            finishedWeek = weekStart;
+            weekStart = currentWeekStart();
+            standings = weeklyWords.drain();
+            persist(finishedWeek, standings);
+        } finally {
+            weekLock.unlock();
+        }
+        log.info("Closed weekly leaderboard for {} with {} users", finishedWeek, standings.size());
+    }
+    
+    private void persist(LocalDate week, List<RankedScoreSet.Entry> entries) {
+        if (week == null || entries.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = entries.stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("board", WEEKLY_WORDS)
+                        .addValue("weekStart", week)
+                        .addValue("userId", e.userId())
+                        .addValue("score", e.score())
+                        .addValue("rank", e.rank()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(LeaderboardSnapshotRepository.UPSERT_SQL, batch);
+    }
+    
+    private RankedScoreSet board(String board) {
+        switch (board) {
+            case WEEKLY_WORDS:
+                return weeklyWords;
+            case STREAK:
+                return streaks;
+            default:
+                throw new RuntimeException("Unknown leaderboard: " + board);
+        }
+    }
+    
+    private LocalDate currentWeekStart() {
+        return LocalDate.now(ZoneId.of(zone)).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+    
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
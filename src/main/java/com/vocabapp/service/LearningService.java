@@ -16,7 +16,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,49 +24,47 @@ public class LearningService {
     private final VocabularyRepository vocabularyRepository;
     private final VocabularyProgressRepository progressRepository;
     private final CollectionRepository collectionRepository;
+    private final OutboxService outboxService;
+    private final RatingService ratingService;
+    private final DataVersionService dataVersionService;
+    private final ChangeFeedService changeFeedService;
     
     /**
-     * Get next word to learn based on learning status
-     * Priority: NOT_STARTED -> LEARNING
+     * Get next word to learn: the NOT_STARTED (multiple choice) or LEARNING (typing) word whose
+     * predicted chance of success for this user is closest to the target
      */
-    public QuizQuestionDTO getNextQuestion(Long collectionId) {
-        com.vocabapp.model.Collection collection = collectionRepository.findById(collectionId)
+    @Transactional(readOnly = true)
+    public QuizQuestionDTO getNextQuestion(Long collectionId, User user) {
+        collectionRepository.findByIdAndUser(collectionId, user)
                 .orElseThrow(() -> new RuntimeException("Collection not found"));
-        
-        // Auto-initialize progress for all vocabularies in collection if not exists
-        List<Vocabulary> allVocabs = vocabularyRepository.findByCollectionId(collectionId);
-        for (Vocabulary vocab : allVocabs) {
-            if (!progressRepository.findByVocabularyIdAndCollectionId(vocab.getId(), collectionId).isPresent()) {
-                VocabularyProgress newProgress = new VocabularyProgress();
-                newProgress.setVocabulary(vocab);
-                newProgress.setCollection(collection);
-                newProgress.setLearningStatus(LearningStatus.NOT_STARTED);
-                newProgress.setLearned(false);
-                newProgress.setReviewCount(0);
-                progressRepository.save(newProgress);
+    
+        // Every membership already has a rated progress row (seeded where memberships are created)
+        float skill = ratingService.getSkill(user.getId());
+        List<Object[]> candidates = progressRepository.findNearestRated(collectionId,
+                ratingService.targetItemRating(skill, false), ratingService.targetItemRating(skill, true));
+    
+        // Candidates come NOT_STARTED first, so on a tie a new word wins over a typing retry
+        Object[] best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (Object[] candidate : candidates) {
+            boolean typingTest = LearningStatus.LEARNING.name().equals(candidate[1]);
+            double distance = ratingService.distanceFromTarget(skill, ((Number) candidate[2]).doubleValue(), typingTest);
+            if (distance < bestDistance) {
+                best = candidate;
+                bestDistance = distance;
             }
         }
-        
-        // First, try to get NOT_STARTED words
-        List<VocabularyProgress> notStarted = progressRepository
-                .findByCollectionIdAndLearningStatus(collectionId, LearningStatus.NOT_STARTED);
-        
-        if (!notStarted.isEmpty()) {
-            VocabularyProgress progress = notStarted.get(0);
-            return createMultipleChoiceQuestion(progress.getVocabulary(), collectionId);
-        }
-        
-        // Then, try to get LEARNING words
-        List<VocabularyProgress> learning = progressRepository
-                .findByCollectionIdAndLearningStatus(collectionId, LearningStatus.LEARNING);
-        
-        if (!learning.isEmpty()) {
-            VocabularyProgress progress = learning.get(0);
-            return createTypingQuestion(progress.getVocabulary());
-        }
-        
+    
         // No words to learn
-        return null;
+        if (best == null) {
+            return null;
+        }
+    
+        Vocabulary vocabulary = vocabularyRepository.findById(((Number) best[0]).longValue())
+                .orElseThrow(() -> new RuntimeException("Vocabulary not found"));
+        return LearningStatus.LEARNING.name().equals(best[1])
+                ? createTypingQuestion(vocabulary)
+                : createMultipleChoiceQuestion(vocabulary, collectionId);
     }
     
     /**
@@ -79,32 +76,22 @@ public class LearningService {
         question.setWord(vocabulary.getWord());
         question.setPhonetic(vocabulary.getPhonetic());
         question.setType("multiple_choice");
-        
-        // Get 3 random wrong answers from the same collection
-        List<Vocabulary> allWords = vocabularyRepository.findByCollectionId(collectionId);
-        List<String> wrongAnswers = allWords.stream()
-                .filter(v -> !v.getId().equals(vocabulary.getId()))
-                .map(Vocabulary::getMeaning)
-                .collect(Collectors.toList());
-        
-        Collections.shuffle(wrongAnswers);
+    
+        // 3 wrong answers from the same collection, without reading the whole collection
+        List<String> wrongAnswers = vocabularyRepository.findDistractorMeanings(collectionId, vocabulary.getId());
         List<String> options = new ArrayList<>();
         options.add(vocabulary.getMeaning()); // Correct answer
-        
-        // Add 3 wrong answers
-        for (int i = 0; i < Math.min(3, wrongAnswers.size()); i++) {
-            options.add(wrongAnswers.get(i));
-        }
-        
+        options.addAll(wrongAnswers);
+    
         // If not enough words in collection, add dummy options
         while (options.size() < 4) {
             options.add("Option " + (options.size() + 1));
         }
-        
+    
         Collections.shuffle(options);
         question.setOptions(options);
         question.setCorrectAnswer(vocabulary.getMeaning());
-        
+    
         return question;
     }
     
@@ -118,7 +105,7 @@ public class LearningService {
         question.setPhonetic(vocabulary.getPhonetic());
         question.setType("typing");
         question.setCorrectAnswer(vocabulary.getWord());
-        
+    
         return question;
     }
     
@@ -127,66 +114,44 @@ public class LearningService {
      */
     @Transactional
     public QuizResultDTO submitAnswer(QuizAnswerDTO answerDTO, User user) {
-        Vocabulary vocabulary = vocabularyRepository.findById(answerDTO.getVocabularyId())
-                .orElseThrow(() -> new RuntimeException("Vocabulary not found"));
-        
-        com.vocabapp.model.Collection collection = collectionRepository.findById(answerDTO.getCollectionId())
+        // Only the owner's own words, answered within their collection, move ratings and progress
+        collectionRepository.findByIdAndUser(answerDTO.getCollectionId(), user)
                 .orElseThrow(() -> new RuntimeException("Collection not found"));
-        
-        // Get or create progress
-        VocabularyProgress progress = progressRepository
-                .findByVocabularyIdAndCollectionId(answerDTO.getVocabularyId(), answerDTO.getCollectionId())
-                .orElseGet(() -> {
-                    VocabularyProgress newProgress = new VocabularyProgress();
-                    newProgress.setVocabulary(vocabulary);
-                    newProgress.setCollection(collection);
-                    newProgress.setLearningStatus(LearningStatus.NOT_STARTED);
-                    return newProgress;
-                });
-        
+        Vocabulary vocabulary = vocabularyRepository.findByIdAndCollectionIdAndUser(
+                        answerDTO.getVocabularyId(), answerDTO.getCollectionId(), user)
+                .orElseThrow(() -> new RuntimeException("Vocabulary not found"));
+    
+        boolean typingTest = !"first".equals(answerDTO.getTestType());
+        String expected = typingTest ? vocabulary.getWord() : vocabulary.getMeaning();
+        boolean correct = answerDTO.getAnswer().trim().equalsIgnoreCase(expected.trim());
+    
+        // Ratings first: they lock every progress row of the word, the upsert below only one of them
+        float rating = ratingService.recordAnswer(user.getId(), vocabulary.getId(), typingTest, correct);
+    
+        // Status transition and reviewCount + 1 are computed by a single atomic upsert; a row it
+        // creates gets the new rating too, so question selection can find it
+        LocalDateTime now = LocalDateTime.now();
+        VocabularyProgress progress = progressRepository.upsertAnswer(
+                answerDTO.getVocabularyId(), answerDTO.getCollectionId(), typingTest, correct, rating, now);
+        dataVersionService.bump(user);
+        changeFeedService.recordProgress(user, List.of(progress.getId()));
+        Integer latencyMs = answerDTO.getLatencyMs() != null && answerDTO.getLatencyMs() >= 0 ? answerDTO.getLatencyMs() : null;
+        outboxService.publish(new DomainEvent.AnswerSubmitted(user.getId(), answerDTO.getVocabularyId(),
+                answerDTO.getCollectionId(), typingTest, correct, latencyMs, now));
+    
         QuizResultDTO result = new QuizResultDTO();
-        
-        if ("first".equals(answerDTO.getTestType())) {
+        result.setCorrect(correct);
+        result.setCorrectAnswer(expected);
+        result.setLearningStatus(progress.getLearningStatus().name());
+    
+        if (!typingTest) {
             // First test: Multiple choice
-            boolean correct = answerDTO.getAnswer().trim().equalsIgnoreCase(vocabulary.getMeaning().trim());
-            result.setCorrect(correct);
-            result.setCorrectAnswer(vocabulary.getMeaning());
-            
-            if (correct) {
-                progress.setLearningStatus(LearningStatus.LEARNING);
-                progress.setFirstAttemptCorrect(true);
-                result.setMessage("Correct! Now let's practice typing this word.");
-                result.setLearningStatus("LEARNING");
-            } else {
-                progress.setLearningStatus(LearningStatus.NOT_STARTED);
-                progress.setFirstAttemptCorrect(false);
-                result.setMessage("Incorrect. Try again!");
-                result.setLearningStatus("NOT_STARTED");
-            }
+            result.setMessage(correct ? "Correct! Now let's practice typing this word." : "Incorrect. Try again!");
         } else {
             // Second test: Typing
-            boolean correct = answerDTO.getAnswer().trim().equalsIgnoreCase(vocabulary.getWord().trim());
-            result.setCorrect(correct);
-            result.setCorrectAnswer(vocabulary.getWord());
-            
-            if (correct) {
-                progress.setLearningStatus(LearningStatus.MASTERED);
-                progress.setSecondAttemptCorrect(true);
-                progress.setLearned(true);
-                result.setMessage("Excellent! You've mastered this word!");
-                result.setLearningStatus("MASTERED");
-            } else {
-                progress.setLearningStatus(LearningStatus.LEARNING);
-                progress.setSecondAttemptCorrect(false);
-                result.setMessage("Not quite right. Keep practicing!");
-                result.setLearningStatus("LEARNING");
-            }
+            result.setMessage(correct ? "Excellent! You've mastered this word!" : "Not quite right. Keep practicing!");
         }
-        
-        progress.setReviewCount(progress.getReviewCount() + 1);
-        progress.setLastReviewedAt(LocalDateTime.now());
-        progressRepository.save(progress);
-        
+    
         return result;
     }
     
@@ -195,24 +160,24 @@ public class LearningService {
      */
     public Map<String, Long> getLearningStats(Long collectionId) {
         Map<String, Long> stats = new HashMap<>();
-        
+    
         long notStarted = progressRepository
                 .findByCollectionIdAndLearningStatus(collectionId, LearningStatus.NOT_STARTED)
                 .size();
-        
+    
         long learning = progressRepository
                 .findByCollectionIdAndLearningStatus(collectionId, LearningStatus.LEARNING)
                 .size();
-        
+    
         long mastered = progressRepository
                 .findByCollectionIdAndLearningStatus(collectionId, LearningStatus.MASTERED)
                 .size();
-        
+    
         stats.put("notStarted", notStarted);
         stats.put("learning", learning);
         stats.put("mastered", mastered);
         stats.put("total", notStarted + learning + mastered);
-        
+    
         return stats;
     }
 }
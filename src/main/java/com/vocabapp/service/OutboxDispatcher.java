@@ -0,0 +1,146 @@
+package com.vocabapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vocabapp.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains the outbox into the registered DomainEventHandlers. Each batch is claimed, handled
+ * and deleted in one transaction. If a batch fails its events are retried one per transaction,
+ * so a single bad event is held back with a growing delay instead of blocking the rest; after
+ * max-attempts it is left in the table and no longer picked up.
+ * <p>
+ * Events are delivered in id order within a batch, grouped by type. Types without a handler are
+ * acknowledged and dropped.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final double retryBackoffSeconds;
+    private final Map<String, Class<? extends DomainEvent>> eventTypes = new HashMap<>();
+    private final Map<Class<?>, List<DomainEventHandler<?>>> handlers = new HashMap<>();
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            List<DomainEventHandler<?>> handlers,
+                            @Value("${app.outbox.batch-size:500}") int batchSize,
+                            @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${app.outbox.retry-backoff:PT5S}") Duration retryBackoff) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffSeconds = retryBackoff.toMillis() / 1000.0;
+        for (Class<?> type : DomainEvent.class.getPermittedSubclasses()) {
+            eventTypes.put(type.getSimpleName(), type.asSubclass(DomainEvent.class));
+        }
+        for (DomainEventHandler<?> handler : handlers) {
+            this.handlers.computeIfAbsent(handler.eventType(), k -> new ArrayList<>()).add(handler);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        if (!dispatchLock.tryLock()) {
+            return;
+        }
+        try {
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed == batchSize);
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+    
+    private int dispatchBatch() {
+        List<Long> ids = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> rows = outboxEventRepository.claimBatch(batchSize, maxAttempts);
+                rows.forEach(row -> ids.add(((Number) row[0]).longValue()));
+                deliver(rows);
+                if (!ids.isEmpty()) {
+                    outboxEventRepository.deleteByIds(ids);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The rollback also dropped the batch's afterCommit work (leaderboard updates); the retries
+            // below register it again, once per event that succeeds
+            log.warn("Outbox batch of {} events failed, retrying them one at a time", ids.size(), e);
+            ids.forEach(this::dispatchOne);
+        }
+        return ids.size();
+    }
+    
+    private void dispatchOne(Long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Empty if another dispatcher holds the row or already delivered it
+                List<Object[]> rows = outboxEventRepository.claim(id);
+                if (!rows.isEmpty()) {
+                    deliver(rows);
+                    outboxEventRepository.deleteByIds(List.of(id));
+                }
+            });
+        } catch (RuntimeException e) {
+            String error = String.valueOf(e.getMessage());
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventRepository.markFailed(id, error.substring(0, Math.min(error.length(), 500)), retryBackoffSeconds));
+            log.error("Outbox event {} failed", id, e);
+        }
+    }
+    
+    private void deliver(List<Object[]> rows) {
+        Map<Class<?>, List<DomainEvent>> byType = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            DomainEvent event = parse((String) row[1], (String) row[2]);
+            byType.computeIfAbsent(event.getClass(), k -> new ArrayList<>()).add(event);
+        }
+        byType.forEach((type, events) -> {
+            for (DomainEventHandler<?> handler : handlers.getOrDefault(type, List.of())) {
+                handle(handler, events);
+            }
+        });
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <E extends DomainEvent> void handle(DomainEventHandler<E> handler, List<DomainEvent> events) {
+        handler.handle((List<E>) events);
+    }
+    
+    private DomainEvent parse(String type, String payload) {
+        Class<? extends DomainEvent> eventClass = eventTypes.get(type);
+        if (eventClass == null) {
+            throw new RuntimeException("Unknown outbox event type: " + type);
+        }
+        try {
+            return objectMapper.readValue(payload, eventClass);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable " + type + " event", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.vocabapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vocabapp.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Publishes domain events by writing them to the outbox in the caller's transaction, so an
+ * event exists exactly when the write that raised it commits. Delivery happens later in
+ * OutboxDispatcher, outside the request.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEvent event) {
+        publishAll(List.of(event));
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(List<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = events.stream()
+                .map(event -> new MapSqlParameterSource()
+                        .addValue("type", event.getClass().getSimpleName())
+                        .addValue("userId", event.userId())
+                        .addValue("payload", toJson(event)))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(OutboxEventRepository.INSERT_SQL, batch);
+    }
+    
+    private String toJson(DomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + event.getClass().getSimpleName(), e);
+        }
+    }
+}
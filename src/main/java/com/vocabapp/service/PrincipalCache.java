@@ -0,0 +1,60 @@
+package com.vocabapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vocabapp.model.User;
+import com.vocabapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL'd cache of authenticated users by id, so a request with a valid JWT
+ * needs no database query. Entries are dropped when the user's credentials change;
+ * on other instances a stale entry lives at most the TTL.
+ * <p>
+ * Entries are immutable snapshots and every get returns a fresh, detached User, so no two
+ * requests share an instance. Writes must load the managed entity from UserRepository.
+ */
+@Component
+public class PrincipalCache {
+    
+    private record Principal(Long id, String username, String email, String password, String timezone,
+                             Integer tokenVersion, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    
+        static Principal of(User user) {
+            return new Principal(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), user.getTimezone(),
+                    user.getTokenVersion(), user.getCreatedAt(), user.getUpdatedAt());
+        }
+    
+        User toUser() {
+            return new User(id, username, email, password, timezone, tokenVersion, createdAt, updatedAt);
+        }
+    }
+    
+    private final UserRepository userRepository;
+    private final Cache<Long, Optional<Principal>> users;
+    
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${app.auth.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${app.auth.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+    
+    public Optional<User> get(Long userId) {
+        // Concurrent misses for the same user share one load
+        return users.get(userId, id -> userRepository.findById(id).map(Principal::of))
+                .map(Principal::toUser);
+    }
+    
+    public void invalidate(Long userId) {
+        users.invalidate(userId);
+    }
+}
@@ -0,0 +1,227 @@
+package com.vocabapp.service;
+
+import com.vocabapp.repository.DailyActivityRepository;
+import com.vocabapp.repository.UserProgressRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind aggregation of the high-frequency progress counters (study time and quiz results).
+ * Deltas are summed in memory per user and written as one JDBC batch per flush, together
+ * with the matching daily_activity upserts.
+ * <p>
+ * At most flush-interval-ms of activity, or flush-max-pending users' worth, is lost if the process
+ * dies without a clean shutdown; a clean shutdown flushes everything.
+ * <p>
+ * A failed flush puts its deltas back for the next one, but never more than flush-max-pending users,
+ * so a database outage can't grow the buffer without bound; deltas beyond that are dropped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProgressWriteBuffer {
+    
+    @Value("${app.progress.flush-max-pending:10000}")
+    private int maxPending;
+    
+    private final UserProgressRepository userProgressRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final LeaderboardService leaderboardService;
+    private final DataVersionService dataVersionService;
+    
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Consecutive failed flushes and the users whose deltas they dropped; written under flushLock
+    private volatile int failedFlushes;
+    private int droppedUsers;
+    
+    public void addStudyTime(Long userId, int minutes) {
+        record(userId, minutes, 0, 0, 0);
+    }
+    
+    public void addQuizResult(Long userId, int correct, int total) {
+        record(userId, 0, 1, correct, total);
+    }
+    
+    /**
+     * Unflushed deltas for a user, for merging into reads
+     */
+    public Optional<Delta> pendingFor(Long userId) {
+        return Optional.ofNullable(pending.get(userId)).map(Pending::snapshot);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.progress.flush-interval-ms:5000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    /**
+     * Flush everything buffered so far, waiting for a flush already in progress instead of skipping.
+     * Used before the day rollover so no activity is left to land on the wrong day.
+     */
+    public void flushNow() {
+        flushLock.lock();
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushNow();
+    }
+    
+    private void record(Long userId, long minutes, long quizzes, long correct, long total) {
+        // compute() serializes with the remove() in drain(), so no delta lands in an entry that was already drained
+        pending.compute(userId, (key, value) -> {
+            Pending entry = value != null ? value : new Pending();
+            entry.add(minutes, quizzes, correct, total);
+            return entry;
+        });
+        // While flushes fail, leave retrying to the schedule instead of starting one per record
+        if (pending.size() >= maxPending && failedFlushes == 0 && !flushLock.isLocked()) {
+            taskExecutor.execute(this::flush);
+        }
+    }
+    
+    private void drain() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> keys = new ArrayList<>(pending.keySet());
+        List<Long> drainedKeys = new ArrayList<>(keys.size());
+        List<Delta> drained = new ArrayList<>(keys.size());
+        for (Long key : keys) {
+            Pending entry = pending.remove(key);
+            if (entry != null) {
+                drainedKeys.add(key);
+                drained.add(entry.snapshot());
+            }
+        }
+    
+        List<Object[]> streaks;
+        try {
+            streaks = transactionTemplate.execute(status -> write(drainedKeys, drained));
+        } catch (RuntimeException e) {
+            restore(drainedKeys, drained, e);
+            return;
+        }
+        if (failedFlushes > 0) {
+            log.info("Progress flush succeeded after {} failed attempts; deltas of {} users were dropped", failedFlushes, droppedUsers);
+            failedFlushes = 0;
+            droppedUsers = 0;
+        }
+    
+        // Only now that the batch is committed: first activity of the day advances the streak
+        for (Object[] row : streaks) {
+            leaderboardService.recordStreak(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+    }
+    
+    /**
+     * Put the deltas of a failed flush back so the next flush retries them. Users still buffered
+     * always get theirs back; new entries only while the buffer is below flush-max-pending.
+     * Only the first failure and the first drop of an outage are logged.
+     */
+    private void restore(List<Long> userIds, List<Delta> deltas, RuntimeException cause) {
+        // Counted first, so the records below don't start another flush straight away
+        boolean firstFailure = failedFlushes++ == 0;
+        int dropped = 0;
+        for (int i = 0; i < userIds.size(); i++) {
+            Long userId = userIds.get(i);
+            Delta d = deltas.get(i);
+            if (pending.size() >= maxPending && !pending.containsKey(userId)) {
+                dropped++;
+                continue;
+            }
+            record(userId, d.minutes(), d.quizzes(), d.correct(), d.total());
+        }
+        if (firstFailure) {
+            log.warn("Progress flush of {} entries failed, will retry", userIds.size(), cause);
+        }
+        if (dropped > 0 && droppedUsers == 0) {
+            log.error("Progress buffer is full while flushes fail; dropping deltas of users beyond {}", maxPending);
+        }
+        droppedUsers += dropped;
+    }
+    
+    // Returns [user_id, streak_days] of the written users
+    private List<Object[]> write(List<Long> userIds, List<Delta> deltas) {
+        SqlParameterSource[] batch = new SqlParameterSource[userIds.size()];
+        for (int i = 0; i < userIds.size(); i++) {
+            batch[i] = parameters(userIds.get(i), deltas.get(i));
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UserProgressRepository.APPLY_ACTIVITY_SQL, batch);
+    
+        // Users without a progress row yet: create it and apply their deltas individually
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                userProgressRepository.createIfAbsent(userIds.get(i));
+                jdbcTemplate.update(UserProgressRepository.APPLY_ACTIVITY_SQL, batch[i]);
+            }
+        }
+    
+        jdbcTemplate.batchUpdate(DailyActivityRepository.RECORD_ACTIVITY_SQL, batch);
+        dataVersionService.bump(userIds);
+        return userProgressRepository.findStreaksByUserIds(userIds);
+    }
+    
+    private SqlParameterSource parameters(Long userId, Delta delta) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("words", 0)
+                .addValue("minutes", delta.minutes())
+                .addValue("quizzes", delta.quizzes())
+                .addValue("correct", delta.correct())
+                .addValue("total", delta.total())
+                .addValue("answers", delta.total());
+    }
+    
+    public record Delta(long minutes, long quizzes, long correct, long total) {
+    }
+    
+    private static final class Pending {
+        private final LongAdder minutes = new LongAdder();
+        private final LongAdder quizzes = new LongAdder();
+        private final LongAdder correct = new LongAdder();
+        private final LongAdder total = new LongAdder();
+    
+        void add(long minutes, long quizzes, long correct, long total) {
+            this.minutes.add(minutes);
+            this.quizzes.add(quizzes);
+            this.correct.add(correct);
+            this.total.add(total);
+        }
+    
+        Delta snapshot() {
+            return new Delta(minutes.sum(), quizzes.sum(), correct.sum(), total.sum());
+        }
+    }
+}
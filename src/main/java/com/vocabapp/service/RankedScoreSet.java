@@ -0,0 +1,232 @@
+package com.vocabapp.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Users ordered by score (highest first, ties by user id), backed by a treap with subtree sizes.
+ * Updates, rank lookups and the start of a page are O(log n); a page costs O(log n + size).
+ */
+public class RankedScoreSet {
+    
+    public record Entry(long userId, long score, int rank) {
+    }
+    
+    private static final class Node {
+        final long score;
+        final long userId;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        int size = 1;
+        Node left;
+        Node right;
+    
+        Node(long score, long userId) {
+            this.score = score;
+            this.userId = userId;
+        }
+    }
+    
+    private final Map<Long, Long> scores = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    
+    /**
+     * Set a user's score; a score of zero or less removes them from the ranking
+     */
+    public void put(long userId, long score) {
+        lock.writeLock().lock();
+        try {
+            Long previous = scores.remove(userId);
+            if (previous != null) {
+                root = remove(root, previous, userId);
+            }
+            if (score > 0) {
+                scores.put(userId, score);
+                root = insert(root, new Node(score, userId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void add(long userId, long delta) {
+        lock.writeLock().lock();
+        try {
+            put(userId, scores.getOrDefault(userId, 0L) + delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Take the full ranking and empty the set in one step
+     */
+    public List<Entry> drain() {
+        lock.writeLock().lock();
+        try {
+            List<Entry> all = new ArrayList<>(size(root));
+            collect(root, 0, size(root), 0, all);
+            scores.clear();
+            root = null;
+            return all;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * The user's 1-based rank and score, or null if they are not ranked
+     */
+    public Entry find(long userId) {
+        lock.readLock().lock();
+        try {
+            Long score = scores.get(userId);
+            if (score == null) {
+                return null;
+            }
+            return new Entry(userId, score, countBefore(root, score, userId) + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public List<Entry> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Entry> out = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+            collect(root, offset, offset + limit, 0, out);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Higher score first, then lower user id
+    private static int compare(long scoreA, long userA, long scoreB, long userB) {
+        int byScore = Long.compare(scoreB, scoreA);
+        return byScore != 0 ? byScore : Long.compare(userA, userB);
+    }
+    
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+    
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+    
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.priority > node.priority) {
+            Node[] parts = split(node, added.score, added.userId);
+            added.left = parts[0];
+            added.right = parts[1];
+            return update(added);
+        }
+        if (compare(added.score, added.userId, node.score, node.userId) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return update(node);
+    }
+    
+    // Splits into nodes ordered before the key and nodes at or after it
+    private static Node[] split(Node node, long score, long userId) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (compare(node.score, node.userId, score, userId) < 0) {
+            Node[] parts = split(node.right, score, userId);
+            node.right = parts[0];
+            parts[0] = update(node);
+            return parts;
+        }
+        Node[] parts = split(node.left, score, userId);
+        node.left = parts[1];
+        parts[1] = update(node);
+        return parts;
+    }
+    
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+    
+    private static Node remove(Node node, long score, long userId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(score, userId, node.score, node.userId);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, score, userId);
+        } else {
+            node.right = remove(node.right, score, userId);
+        }
+        return update(node);
+    }
+    
+    private static int countBefore(Node node, long score, long userId) {
+        int count = 0;
+        while (node != null) {
+            int cmp = compare(score, userId, node.score, node.userId);
+            if (cmp == 0) {
+                return count + size(node.left);
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+    
+    // In-order walk of positions [from, to); base is the position of the subtree's first node
+    private static void collect(Node node, int from, int to, int base, List<Entry> out) {
+        if (node == null || from >= to) {
+            return;
+        }
+        int index = base + size(node.left);
+        if (from < index) {
+            collect(node.left, from, to, base, out);
+        }
+        if (from <= index && index < to) {
+            out.add(new Entry(node.userId, node.score, index + 1));
+        }
+        if (to > index + 1) {
+            collect(node.right, from, to, index + 1, out);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.vocabapp.service;
+
+import com.vocabapp.repository.ItemRatingRepository;
+import com.vocabapp.repository.SkillRatingRepository;
+import com.vocabapp.repository.VocabularyProgressRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Online Elo ratings for learners (skill) and words (item difficulty), on one scale where a learner
+ * and a word of equal rating give a 50% chance of a correct typed answer. Each answer moves both
+ * ratings by K times the surprise, with K shrinking as a rating collects answers.
+ * <p>
+ * Multiple choice is scored against a 1-in-4 guess floor, so a right pick of an easy word moves little.
+ */
+@Service
+@RequiredArgsConstructor
+public class RatingService {
+    
+    private static final double CHOICE_GUESS_RATE = 0.25;
+    
+    @Value("${app.rating.initial:1500}")
+    private float initialRating;
+    
+    @Value("${app.rating.k-max:64}")
+    private double kMax;
+    
+    @Value("${app.rating.k-min:16}")
+    private double kMin;
+    
+    // Answers after which K has halved from k-max
+    @Value("${app.rating.k-half-life:20}")
+    private double kHalfLife;
+    
+    @Value("${app.rating.target-success:0.7}")
+    private double targetSuccess;
+    
+    private final SkillRatingRepository skillRatingRepository;
+    private final ItemRatingRepository itemRatingRepository;
+    private final VocabularyProgressRepository progressRepository;
+    
+    public float getInitialRating() {
+        return initialRating;
+    }
+    
+    public float getSkill(Long userId) {
+        return skillRatingRepository.findRating(userId).orElse(initialRating);
+    }
+    
+    /**
+     * Apply one answer to both ratings and copy the word's new rating to its progress rows.
+     * Locks the item row before the skill row, and both before any progress row.
+     * Returns the word's new rating, for progress rows the caller creates afterwards.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public float recordAnswer(Long userId, Long vocabularyId, boolean typingTest, boolean correct) {
+        itemRatingRepository.createIfAbsent(vocabularyId, initialRating);
+        skillRatingRepository.createIfAbsent(userId, initialRating);
+        List<Object[]> item = itemRatingRepository.lock(vocabularyId);
+        List<Object[]> skill = skillRatingRepository.lock(userId);
+        if (item.isEmpty() || skill.isEmpty()) {
+            throw new RuntimeException("Vocabulary not found");
+        }
+        double itemRating = ((Number) item.get(0)[0]).doubleValue();
+        double skillRating = ((Number) skill.get(0)[0]).doubleValue();
+    
+        double surprise = (correct ? 1 : 0) - successProbability(skillRating, itemRating, typingTest);
+        float newItemRating = (float) (itemRating - kFactor(((Number) item.get(0)[1]).intValue()) * surprise);
+        float newSkillRating = (float) (skillRating + kFactor(((Number) skill.get(0)[1]).intValue()) * surprise);
+    
+        itemRatingRepository.update(vocabularyId, newItemRating);
+        skillRatingRepository.update(userId, newSkillRating);
+        progressRepository.updateRating(vocabularyId, newItemRating);
+        return newItemRating;
+    }
+    
+    public double successProbability(double skill, double itemRating, boolean typingTest) {
+        double p = 1 / (1 + Math.pow(10, (itemRating - skill) / 400));
+        return typingTest ? p : CHOICE_GUESS_RATE + (1 - CHOICE_GUESS_RATE) * p;
+    }
+    
+    /**
+     * How far a question's chance of success is from target-success
+     */
+    public double distanceFromTarget(double skill, double itemRating, boolean typingTest) {
+        return Math.abs(successProbability(skill, itemRating, typingTest) - targetSuccess);
+    }
+    
+    /**
+     * The item rating a learner of this skill answers correctly with target-success probability
+     */
+    public float targetItemRating(double skill, boolean typingTest) {
+        double p = typingTest ? targetSuccess : (targetSuccess - CHOICE_GUESS_RATE) / (1 - CHOICE_GUESS_RATE);
+        p = Math.min(0.95, Math.max(0.05, p));
+        return (float) (skill - 400 * Math.log10(p / (1 - p)));
+    }
+    
+    /**
+     * Item ratings of deleted words
+     */
+    @Transactional
+    public void forgetWords(List<Long> vocabularyIds) {
+        if (!vocabularyIds.isEmpty()) {
+            itemRatingRepository.deleteAllByIdInBatch(vocabularyIds);
+        }
+    }
+    
+    private double kFactor(int answers) {
+        return Math.max(kMin, kMax / (1 + answers / kHalfLife));
+    }
+}
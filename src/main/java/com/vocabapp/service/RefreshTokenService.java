@@ -2,16 +2,27 @@ package com.vocabapp.service;
 
 import com.vocabapp.model.RefreshToken;
 import com.vocabapp.repository.RefreshTokenRepository;
-import com.vocabapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.Optional;
-import java.util.UUID;
 
+/**
+ * Refresh tokens are handed to the client once and only their SHA-256 is stored,
+ * so a leaked table does not leak usable tokens.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenService {
@@ -19,57 +30,65 @@ public class RefreshTokenService {
     @Value("${application.security.jwt.refresh-token.expiration:86400000}")
     private Long refreshTokenDurationMs;
 
-    private final RefreshTokenRepository refreshTokenRepository;
-    private final UserRepository userRepository;
-
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
-    }
+    @Value("${app.auth.refresh-token-sweep-chunk-size:1000}")
+    private int sweepChunkSize;
 
-    public RefreshToken createRefreshToken(Long userId) {
-        RefreshToken refreshToken = new RefreshToken();
+    private static final SecureRandom RANDOM = new SecureRandom();
 
-        refreshToken.setUser(userRepository.findById(userId).get());
-        refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
-        refreshToken.setToken(UUID.randomUUID().toString());
+    private final RefreshTokenRepository refreshTokenRepository;
 
-        // Delete old token if exists (optional, for 1 token per user policy)
-        // refreshTokenRepository.deleteByUser(userRepository.findById(userId).get());
-        
-        // Or update existing? For simplicity, let's just save. 
-        // But since it's OneToOne, we should handle existing.
-        // Actually, let's check if user has one.
-        Optional<RefreshToken> existing = refreshTokenRepository.findById(userId); 
-        // Wait, ID is auto gen. We need to find by User.
-        // But OneToOne mapping might cause issues if we insert duplicate.
-        // Let's implement deleteByUser first in create.
-        
-        return refreshTokenRepository.save(refreshToken);
+    public Optional<RefreshToken> findByToken(String token) {
+        return refreshTokenRepository.findByToken(hash(token));
     }
     
+    /**
+     * Issue a new refresh token for the user, replacing any previous one in a single upsert.
+     * Returns the raw token; only its hash is stored.
+     */
     @Transactional
-    public RefreshToken createOrUpdateRefreshToken(Long userId) {
-        // Delete existing token for user
-        refreshTokenRepository.deleteByUser(userRepository.findById(userId).get());
-        
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setUser(userRepository.findById(userId).get());
-        refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
-        refreshToken.setToken(UUID.randomUUID().toString());
-        
-        return refreshTokenRepository.save(refreshToken);
+    public String rotateRefreshToken(Long userId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.upsertForUser(userId, hash(token), Instant.now().plusMillis(refreshTokenDurationMs));
+        return token;
     }
 
     public RefreshToken verifyExpiration(RefreshToken token) {
         if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
             refreshTokenRepository.delete(token);
-            throw new RuntimeException(token.getToken() + " Refresh token was expired. Please make a new signin request");
+            throw new RuntimeException("Refresh token was expired. Please make a new signin request");
         }
         return token;
     }
 
     @Transactional
     public int deleteByUserId(Long userId) {
-        return refreshTokenRepository.deleteByUser(userRepository.findById(userId).get());
+        return refreshTokenRepository.deleteByUserId(userId);
+    }
+    
+    /**
+     * Remove expired tokens in small chunks, each in its own transaction
+     */
+    @Scheduled(fixedDelayString = "${app.auth.refresh-token-sweep-interval-ms:3600000}")
+    public void sweepExpired() {
+        long removed = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredChunk(Instant.now(), sweepChunkSize);
+            removed += deleted;
+        } while (deleted == sweepChunkSize);
+        if (removed > 0) {
+            log.info("Removed {} expired refresh tokens", removed);
+        }
+    }
+    
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,141 @@
+package com.vocabapp.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only log of every quiz answer in review_event, fed from AnswerSubmitted outbox events.
+ * Each outbox batch becomes a few multi-row inserts inside the dispatcher's transaction, so an
+ * answer is logged exactly once and the request that submitted it never waits on this table.
+ * <p>
+ * review_event is range-partitioned by month on answered_at. Hibernate can't create partitioned
+ * tables, so the table and its partitions are managed here rather than through an entity.
+ * Partitions are created ahead of time and dropped whole once they fall out of retention.
+ * A delayed or retried answer older than every monthly partition lands in the DEFAULT partition
+ * instead of failing its outbox batch; those rows are deleted once they fall out of retention.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReviewLogService implements DomainEventHandler<DomainEvent.AnswerSubmitted>, InitializingBean {
+    
+    private static final String TABLE = "review_event";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final String COLUMNS = "(user_id, vocabulary_id, collection_id, typing_test, correct, latency_ms, answered_at)";
+    private static final int PARAMETERS_PER_ROW = 7;
+    
+    @Value("${app.reviews.insert-rows:500}")
+    private int insertRows;
+    
+    @Value("${app.reviews.premake-months:2}")
+    private int premakeMonths;
+    
+    // 0 keeps every partition
+    @Value("${app.reviews.retention-months:24}")
+    private int retentionMonths;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public Class<DomainEvent.AnswerSubmitted> eventType() {
+        return DomainEvent.AnswerSubmitted.class;
+    }
+    
+    @Override
+    public void handle(List<DomainEvent.AnswerSubmitted> events) {
+        for (int from = 0; from < events.size(); from += insertRows) {
+            insert(events.subList(from, Math.min(events.size(), from + insertRows)));
+        }
+    }
+    
+    // Runs before the scheduler starts, so the outbox never delivers into a missing partition
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                "id bigserial NOT NULL, " +
+                "user_id bigint NOT NULL, " +
+                "vocabulary_id bigint NOT NULL, " +
+                "collection_id bigint, " +
+                "typing_test boolean NOT NULL, " +
+                "correct boolean NOT NULL, " +
+                "latency_ms integer, " +
+                "answered_at timestamp(6) NOT NULL, " +
+                "PRIMARY KEY (id, answered_at)" +
+                ") PARTITION BY RANGE (answered_at)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_review_event_user_time ON " + TABLE + " (user_id, answered_at)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+        maintainPartitions();
+    }
+    
+    /**
+     * Create the partitions from last month to premake-months ahead and drop those past retention.
+     * The window only moves forward, so rows in the DEFAULT partition are always older than any
+     * month created here and never block its creation.
+     */
+    @Scheduled(cron = "${app.reviews.partition-cron:0 15 0 * * *}")
+    public void maintainPartitions() {
+        YearMonth current = YearMonth.now();
+        for (YearMonth month = current.minusMonths(1); !month.isAfter(current.plusMonths(premakeMonths)); month = month.plusMonths(1)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE +
+                    " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestMonth = current.minusMonths(retentionMonths - 1);
+        String oldest = partitionName(oldestMonth);
+        // Names sort in month order, so everything before the oldest kept name is out of retention
+        for (String partition : partitions()) {
+            if (!partition.equals(DEFAULT_PARTITION) && partition.compareTo(oldest) < 0) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                log.info("Dropped review log partition {}", partition);
+            }
+        }
+        int expired = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE answered_at < ?", oldestMonth.atDay(1).atStartOfDay());
+        if (expired > 0) {
+            log.info("Deleted {} late review log rows past retention", expired);
+        }
+    }
+    
+    private void insert(List<DomainEvent.AnswerSubmitted> events) {
+        StringBuilder sql = new StringBuilder("INSERT INTO " + TABLE + " " + COLUMNS + " VALUES ");
+        List<Object> args = new ArrayList<>(events.size() * PARAMETERS_PER_ROW);
+        for (int i = 0; i < events.size(); i++) {
+            DomainEvent.AnswerSubmitted event = events.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?)");
+            args.add(event.userId());
+            args.add(event.vocabularyId());
+            args.add(event.collectionId());
+            args.add(event.typingTest());
+            args.add(event.correct());
+            args.add(event.latencyMs());
+            args.add(event.answeredAt());
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+    
+    private List<String> partitions() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?", String.class, TABLE);
+        Collections.sort(names);
+        return names;
+    }
+    
+    private static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(PARTITION_SUFFIX);
+    }
+}
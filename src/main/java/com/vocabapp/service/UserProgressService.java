@@ -1,112 +1,230 @@
 package com.vocabapp.service;
 
+import com.vocabapp.model.DailyActivity;
 import com.vocabapp.model.User;
 import com.vocabapp.model.UserProgress;
+import com.vocabapp.repository.DailyActivityRepository;
 import com.vocabapp.repository.UserProgressRepository;
-import com.vocabapp.repository.VocabularyRepository;
+import com.vocabapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserProgressService {
     
     private final UserProgressRepository userProgressRepository;
-    private final VocabularyRepository vocabularyRepository;
+    private final ProgressWriteBuffer progressWriteBuffer;
+    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final DailyActivityRepository dailyActivityRepository;
+    private final LeaderboardService leaderboardService;
+    private final DataVersionService dataVersionService;
     
-    public UserProgress getOrCreateProgress(User user) {
-        UserProgress progress = userProgressRepository.findByUser(user)
-                .orElseGet(() -> {
-                    UserProgress newProgress = new UserProgress();
-                    newProgress.setUser(user);
-                    return userProgressRepository.save(newProgress);
-                });
-        
-        // Always sync counts from vocabulary table
-        updateTotalWords(progress, user);
-        // Check for day changes to reset daily counters and update streak
-        updateStreak(progress);
-        
-        return userProgressRepository.save(progress);
+    @Value("${app.progress.rollover-chunk-size:1000}")
+    private int rolloverChunkSize;
+    
+    @Value("${app.progress.activity-max-days:366}")
+    private int maxActivityDays;
+    
+    /**
+     * Seed the counters of users that have no progress row, so their dashboard isn't all zeros
+     * until their first write. New users get their row at registration.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        int created = userProgressRepository.createMissing();
+        if (created > 0) {
+            log.info("Created progress rows for {} users", created);
+        }
+    }
+    
+    /**
+     * Dashboard read: a primary-key lookup with no writes. Word counts are maintained
+     * incrementally by the vocabulary write paths (see adjustWordCounts), and activity
+     * still sitting in the write-behind buffer is merged in.
+     */
+    @Transactional(readOnly = true)
+    public UserProgress getProgress(User user) {
+        UserProgress progress = userProgressRepository.findByUserId(user.getId())
+                .orElseGet(UserProgress::new);
+        // Entities loaded in a read-only transaction are never flushed, so this only shapes the response
+        progressWriteBuffer.pendingFor(user.getId()).ifPresent(delta -> mergePending(progress, delta));
+        return progress;
+    }
+    
+    /**
+     * ETag of getProgress: the user's data version plus whatever is still pending in the write-behind buffer
+     */
+    public String progressEtag(User user) {
+        String version = "p" + user.getId() + "-" + dataVersionService.version(user);
+        return progressWriteBuffer.pendingFor(user.getId())
+                .map(d -> "\"" + version + "-" + d.minutes() + "." + d.quizzes() + "." + d.total() + "\"")
+                .orElse("\"" + version + "\"");
     }
     
+    /**
+     * Activity history for the calendar heatmap; defaults to the year ending today (user's local day)
+     */
+    @Transactional(readOnly = true)
+    public List<DailyActivity> getActivity(User user, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(ZoneId.of(user.getTimezone()));
+        LocalDate start = from != null ? from : end.minusDays(364);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= maxActivityDays) {
+            throw new RuntimeException("Range must not exceed " + maxActivityDays + " days");
+        }
+        return dailyActivityRepository.findByUserIdAndDayBetweenOrderByDayAsc(user.getId(), start, end);
+    }
+    
+    /**
+     * Returns the normalized zone id that was stored
+     */
     @Transactional
-    public UserProgress updateProgress(UserProgress progress, User user) {
-        updateTotalWords(progress, user);
-        updateStreak(progress);
-        return userProgressRepository.save(progress);
+    public String updateTimezone(User user, String timezone) {
+        String zoneId;
+        try {
+            zoneId = ZoneId.of(timezone).getId();
+        } catch (DateTimeException | NullPointerException e) {
+            throw new RuntimeException("Invalid timezone: " + timezone);
+        }
+        // The principal is a detached copy; write through the managed entity
+        User managed = userRepository.findById(user.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        managed.setTimezone(zoneId);
+        userRepository.save(managed);
+        principalCache.invalidate(user.getId());
+        userProgressRepository.rescheduleRollover(user.getId());
+        return zoneId;
     }
     
+    // Counter mutations: one atomic statement each, no read-modify-write
+    
+    /**
+     * Records study activity only; learnedWords itself follows the vocabulary table
+     */
     @Transactional
     public UserProgress incrementLearnedWords(User user) {
-        UserProgress progress = getOrCreateProgress(user);
-        progress.setLearnedWords(progress.getLearnedWords() + 1);
-        updateStreak(progress);
-        return userProgressRepository.save(progress);
+        return applyActivity(user.getId(), 0, 0, 0, 0, 0);
     }
     
-    @Transactional
+    // Study time and quiz results are posted constantly, so they go through the write-behind buffer
     public UserProgress addStudyTime(User user, Integer minutes) {
-        UserProgress progress = getOrCreateProgress(user);
-        updateStreak(progress);
-        progress.setStudyTimeMinutes(progress.getStudyTimeMinutes() + minutes);
-        progress.setStudyTimeToday(progress.getStudyTimeToday() + minutes);
-        return userProgressRepository.save(progress);
+        if (minutes == null || minutes < 0) {
+            throw new IllegalArgumentException("'minutes' must be a non-negative number");
+        }
+        progressWriteBuffer.addStudyTime(user.getId(), minutes);
+        return getProgress(user);
     }
     
-    @Transactional
     public UserProgress recordQuizResult(User user, Integer correct, Integer total) {
-        UserProgress progress = getOrCreateProgress(user);
-        progress.setQuizzesTaken(progress.getQuizzesTaken() + 1);
-        progress.setCorrectAnswers(progress.getCorrectAnswers() + correct);
-        progress.setTotalAnswers(progress.getTotalAnswers() + total);
-        updateStreak(progress);
-        return userProgressRepository.save(progress);
+        if (correct == null || total == null || correct < 0 || correct > total) {
+            throw new IllegalArgumentException("'correct' and 'total' are required, with 0 <= correct <= total");
+        }
+        progressWriteBuffer.addQuizResult(user.getId(), correct, total);
+        return getProgress(user);
     }
     
+    /**
+     * Words learned today; applied from WordLearned outbox events, not from the request that learned them
+     */
     @Transactional
-    public UserProgress incrementWordsLearnedToday(User user) {
-        UserProgress progress = getOrCreateProgress(user);
-        progress.setWordsLearnedToday(progress.getWordsLearnedToday() + 1);
-        updateStreak(progress);
-        return userProgressRepository.save(progress);
+    public UserProgress recordWordsLearned(Long userId, int count) {
+        return applyActivity(userId, count, 0, 0, 0, 0);
     }
     
-    private void updateTotalWords(UserProgress progress, User user) {
-        Long totalWords = vocabularyRepository.countByUser(user);
-        Long learnedWords = vocabularyRepository.countLearnedWordsByUser(user);
-        progress.setTotalWords(totalWords.intValue());
-        progress.setLearnedWords(learnedWords.intValue());
+    /**
+     * Keep totalWords/learnedWords in step with a vocabulary change made earlier in the
+     * same transaction.
+     */
+    @Transactional
+    public void adjustWordCounts(User user, int totalDelta, int learnedDelta) {
+        if (totalDelta == 0 && learnedDelta == 0) {
+            return;
+        }
+        if (userProgressRepository.adjustWordCounts(user.getId(), totalDelta, learnedDelta) == 0) {
+            // First row for this user: seeded from the vocabulary table, which already includes the change
+            userProgressRepository.createIfAbsent(user.getId());
+        }
     }
     
-    private void updateStreak(UserProgress progress) {
-        LocalDate today = LocalDate.now();
-        LocalDate lastStudy = progress.getLastStudyDate();
-        
-        if (lastStudy == null) {
-            progress.setStreakDays(1);
-            progress.setLastStudyDate(today);
-            progress.setStudyTimeToday(0);
-            progress.setWordsLearnedToday(0);
-        } else if (lastStudy.equals(today)) {
-            // Already studied today, no change
-            return;
-        } else {
-            long daysBetween = ChronoUnit.DAYS.between(lastStudy, today);
-            if (daysBetween == 1) {
-                // Consecutive day
-                progress.setStreakDays(progress.getStreakDays() + 1);
-            } else if (daysBetween > 1) {
-                // Streak broken
-                progress.setStreakDays(1);
-            }
-            progress.setLastStudyDate(today);
-            progress.setStudyTimeToday(0);
-            progress.setWordsLearnedToday(0);
+    /**
+     * Periodic repair of drift in the maintained word counts
+     */
+    @Scheduled(cron = "${app.progress.reconcile-cron:0 30 3 * * *}")
+    public void reconcileWordCounts() {
+        int repaired = userProgressRepository.reconcileWordCounts();
+        if (repaired > 0) {
+            // The repaired users aren't known individually; make every client revalidate once
+            dataVersionService.bumpAll();
+            log.info("Reconciled word counts for {} users", repaired);
+        }
+    }
+    
+    /**
+     * Roll the study day over for every user whose local midnight has passed, in chunks
+     * that each commit on their own. Pending buffered activity is flushed first so it
+     * counts toward the day it happened in.
+     */
+    @Scheduled(fixedDelayString = "${app.progress.rollover-interval-ms:60000}")
+    public void rolloverDueUsers() {
+        progressWriteBuffer.flushNow();
+        long rolled = 0;
+        int updated;
+        do {
+            // Each chunk commits on its own, so the leaderboard only ever sees committed streaks
+            List<Object[]> rows = userProgressRepository.rolloverDueChunk(rolloverChunkSize);
+            rows.forEach(row -> leaderboardService.recordStreak(((Number) row[0]).longValue(), ((Number) row[1]).intValue()));
+            dataVersionService.bump(rows.stream().map(row -> ((Number) row[0]).longValue()).toList());
+            updated = rows.size();
+            rolled += updated;
+        } while (updated == rolloverChunkSize);
+        if (rolled > 0) {
+            log.info("Rolled over the study day for {} users", rolled);
+        }
+    }
+    
+    private UserProgress applyActivity(Long userId, int words, int minutes, int quizzes, int correct, int total) {
+        if (words != 0 || minutes != 0 || total != 0) {
+            dailyActivityRepository.recordActivity(userId, words, minutes, total, correct);
+        }
+        UserProgress progress = userProgressRepository.applyActivity(userId, words, minutes, quizzes, correct, total)
+                .orElseGet(() -> {
+                    userProgressRepository.createIfAbsent(userId);
+                    return userProgressRepository.applyActivity(userId, words, minutes, quizzes, correct, total)
+                            .orElseThrow(() -> new RuntimeException("User progress not found"));
+                });
+        leaderboardService.recordWordsLearned(userId, words);
+        leaderboardService.recordStreak(userId, progress.getStreakDays());
+        dataVersionService.bump(List.of(userId));
+        return progress;
+    }
+    
+    // Same rules as UserProgressRepository.APPLY_ACTIVITY_SQL
+    private void mergePending(UserProgress progress, ProgressWriteBuffer.Delta delta) {
+        if (!Boolean.TRUE.equals(progress.getStudiedToday())) {
+            progress.setStreakDays(progress.getStreakDays() + 1);
+            progress.setStudiedToday(true);
         }
+        progress.setStudyTimeToday(progress.getStudyTimeToday() + (int) delta.minutes());
+        progress.setStudyTimeMinutes(progress.getStudyTimeMinutes() + (int) delta.minutes());
+        progress.setQuizzesTaken(progress.getQuizzesTaken() + (int) delta.quizzes());
+        progress.setCorrectAnswers(progress.getCorrectAnswers() + (int) delta.correct());
+        progress.setTotalAnswers(progress.getTotalAnswers() + (int) delta.total());
     }
 }
@@ -1,9 +1,12 @@
 package com.vocabapp.service;
 
 import com.vocabapp.model.User;
+import com.vocabapp.repository.RefreshTokenRepository;
+import com.vocabapp.repository.UserProgressRepository;
 import com.vocabapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -14,10 +17,13 @@ import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
+    private final UserProgressRepository userProgressRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
     
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -25,6 +31,20 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
     
+    /**
+     * Called by the authentication provider after a successful login whose stored hash
+     * needs upgrading (e.g. the BCrypt strength was raised)
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        user.setPassword(newPassword);
+        User saved = userRepository.save(user);
+        principalCache.invalidate(user.getId());
+        return saved;
+    }
+    
     @Transactional
     public User register(String username, String email, String password) {
         if (userRepository.existsByUsername(username)) {
@@ -39,7 +59,9 @@ public class UserService implements UserDetailsService {
         user.setEmail(email);
         user.setPassword(passwordEncoder.encode(password));
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userProgressRepository.createIfAbsent(saved.getId());
+        return saved;
     }
     
     public Optional<User> findByUsername(String username) {
@@ -50,13 +72,25 @@ public class UserService implements UserDetailsService {
         return userRepository.findByEmail(email);
     }
     
+    /**
+     * Changes the password and revokes every token issued so far: access tokens by bumping the
+     * token version, the refresh token by deleting it. Returns the updated user so the caller
+     * can issue fresh tokens.
+     */
     @Transactional
-    public void changePassword(User user, String currentPassword, String newPassword) {
+    public User changePassword(User principal, String currentPassword, String newPassword) {
+        // The principal may come from the cache; check against the stored hash
+        User user = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
         if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
             throw new RuntimeException("Current password is incorrect");
         }
         
         user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User saved = userRepository.save(user);
+        refreshTokenRepository.deleteByUserId(user.getId());
+        principalCache.invalidate(user.getId());
+        return saved;
     }
 }
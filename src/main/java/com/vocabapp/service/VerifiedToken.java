@@ -0,0 +1,14 @@
+package com.vocabapp.service;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature and expiry have been checked.
+ * userId and tokenVersion are null for tokens issued before those claims existed.
+ */
+public record VerifiedToken(String username, Long userId, Integer tokenVersion, Instant expiresAt) {
+    
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,30 @@
+package com.vocabapp.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drops the per-word rollups and item ratings of deleted words
+ */
+@Component
+@RequiredArgsConstructor
+public class VocabularyDeletedHandler implements DomainEventHandler<DomainEvent.VocabularyDeleted> {
+    
+    private final AnalyticsService analyticsService;
+    private final RatingService ratingService;
+    
+    @Override
+    public Class<DomainEvent.VocabularyDeleted> eventType() {
+        return DomainEvent.VocabularyDeleted.class;
+    }
+    
+    @Override
+    public void handle(List<DomainEvent.VocabularyDeleted> events) {
+        events.forEach(event -> {
+            analyticsService.forgetWords(event.userId(), event.vocabularyIds());
+            ratingService.forgetWords(event.vocabularyIds());
+        });
+    }
+}
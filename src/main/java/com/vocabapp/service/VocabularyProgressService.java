@@ -1,48 +1,55 @@
 package com.vocabapp.service;
 
 import com.vocabapp.dto.VocabularyDTO;
-import com.vocabapp.model.Collection;
+import com.vocabapp.model.User;
 import com.vocabapp.model.Vocabulary;
 import com.vocabapp.model.VocabularyProgress;
-import com.vocabapp.repository.CollectionRepository;
 import com.vocabapp.repository.VocabularyProgressRepository;
 import com.vocabapp.repository.VocabularyRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class VocabularyProgressService {
     
     private final VocabularyProgressRepository progressRepository;
     private final VocabularyRepository vocabularyRepository;
-    private final CollectionRepository collectionRepository;
-    private final UserProgressService userProgressService;
+    private final OutboxService outboxService;
+    private final DataVersionService dataVersionService;
+    private final ChangeFeedService changeFeedService;
+    private final RatingService ratingService;
+    
+    /**
+     * Seed rated progress rows for memberships created before the write paths did it themselves
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        int seeded = progressRepository.initializeMissing(ratingService.getInitialRating());
+        if (seeded > 0) {
+            log.info("Seeded progress rows for {} collection memberships", seeded);
+        }
+    }
     
     /**
      * Get or create progress for a vocabulary in a collection
      */
+    @Transactional
     public VocabularyProgress getOrCreateProgress(Long vocabularyId, Long collectionId) {
+        progressRepository.insertIfAbsent(vocabularyId, collectionId);
         return progressRepository.findByVocabularyIdAndCollectionId(vocabularyId, collectionId)
-                .orElseGet(() -> {
-                    Vocabulary vocab = vocabularyRepository.findById(vocabularyId)
-                            .orElseThrow(() -> new RuntimeException("Vocabulary not found"));
-                    Collection collection = collectionRepository.findById(collectionId)
-                            .orElseThrow(() -> new RuntimeException("Collection not found"));
-                    
-                    VocabularyProgress progress = new VocabularyProgress();
-                    progress.setVocabulary(vocab);
-                    progress.setCollection(collection);
-                    progress.setLearned(false);
-                    progress.setReviewCount(0);
-                    return progressRepository.save(progress);
-                });
+                .orElseThrow(() -> new RuntimeException("Progress not found"));
     }
     
     /**
@@ -50,18 +57,14 @@ public class VocabularyProgressService {
      */
     @Transactional
     public VocabularyProgress toggleLearned(Long vocabularyId, Long collectionId) {
-        VocabularyProgress progress = getOrCreateProgress(vocabularyId, collectionId);
-        boolean wasUnlearned = !progress.getLearned();
-        progress.setLearned(!progress.getLearned());
-        progress.setLastReviewedAt(LocalDateTime.now());
-        
-        VocabularyProgress saved = progressRepository.save(progress);
-        
-        // Increment wordsLearnedToday if changed to learned
-        if (wasUnlearned && saved.getLearned()) {
-            userProgressService.incrementWordsLearnedToday(saved.getCollection().getUser());
+        VocabularyProgress saved = progressRepository.upsertToggleLearned(vocabularyId, collectionId, now());
+        recordChange(saved);
+    
+        // Toggle always flips, so learned == true means it just became learned
+        if (saved.getLearned()) {
+            publishWordLearned(saved);
         }
-        
+    
         return saved;
     }
     
@@ -70,19 +73,15 @@ public class VocabularyProgressService {
      */
     @Transactional
     public VocabularyProgress markAsLearned(Long vocabularyId, Long collectionId, Boolean learned) {
-        VocabularyProgress progress = getOrCreateProgress(vocabularyId, collectionId);
-        boolean wasUnlearned = !progress.getLearned();
-        progress.setLearned(learned);
-        progress.setLastReviewedAt(LocalDateTime.now());
-        progress.setReviewCount(progress.getReviewCount() + 1);
-        
-        VocabularyProgress saved = progressRepository.save(progress);
-        
-        // Increment wordsLearnedToday if changed to learned
-        if (wasUnlearned && learned) {
-            userProgressService.incrementWordsLearnedToday(saved.getCollection().getUser());
+        LocalDateTime now = now();
+        VocabularyProgress saved = progressRepository.upsertLearned(vocabularyId, collectionId, learned, now);
+        recordChange(saved);
+    
+        // learnedAt only carries this request's timestamp if this statement flipped it to learned
+        if (learned && now.equals(saved.getLearnedAt())) {
+            publishWordLearned(saved);
         }
-        
+    
         return saved;
     }
     
@@ -92,14 +91,14 @@ public class VocabularyProgressService {
     public List<VocabularyDTO> getVocabulariesWithProgress(Long collectionId) {
         List<Vocabulary> vocabularies = vocabularyRepository.findByCollectionId(collectionId);
         List<VocabularyDTO> result = new ArrayList<>();
-        
+    
         for (Vocabulary vocab : vocabularies) {
             VocabularyDTO dto = convertToDTO(vocab);
-            
+    
             // Get progress for this collection
             Optional<VocabularyProgress> progress = progressRepository
                     .findByVocabularyIdAndCollectionId(vocab.getId(), collectionId);
-            
+    
             if (progress.isPresent()) {
                 dto.setLearned(progress.get().getLearned());
                 dto.setReviewCount(progress.get().getReviewCount());
@@ -108,10 +107,10 @@ public class VocabularyProgressService {
                 dto.setLearned(false);
                 dto.setReviewCount(0);
             }
-            
+    
             result.add(dto);
         }
-        
+    
         return result;
     }
     
@@ -131,6 +130,22 @@ public class VocabularyProgressService {
         return total - learned;
     }
     
+    private void recordChange(VocabularyProgress progress) {
+        User user = progress.getCollection().getUser();
+        dataVersionService.bump(user);
+        changeFeedService.recordProgress(user, List.of(progress.getId()));
+    }
+    
+    private void publishWordLearned(VocabularyProgress progress) {
+        Long userId = progress.getCollection().getUser().getId();
+        outboxService.publish(new DomainEvent.WordLearned(userId, progress.getVocabulary().getId(), 1));
+    }
+    
+    // Truncated to the database's timestamp precision so it compares equal after a round trip
+    private LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+    
     /**
      * Convert Vocabulary entity to DTO
      */
@@ -146,6 +161,7 @@ public class VocabularyProgressService {
         dto.setAntonym(vocab.getAntonym());
         dto.setCategory(vocab.getCategory());
         dto.setDifficulty(vocab.getDifficulty());
+        dto.setCalibratedDifficulty(vocab.getCalibratedDifficulty());
         dto.setCollections(vocab.getCollections());
         dto.setCreatedAt(vocab.getCreatedAt());
         dto.setUpdatedAt(vocab.getUpdatedAt());
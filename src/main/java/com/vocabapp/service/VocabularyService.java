@@ -1,9 +1,14 @@
 package com.vocabapp.service;
 
+import com.vocabapp.dto.BulkVocabularyRequest;
+import com.vocabapp.model.Collection;
 import com.vocabapp.model.User;
 import com.vocabapp.model.Vocabulary;
+import com.vocabapp.repository.CollectionRepository;
+import com.vocabapp.repository.VocabularyProgressRepository;
 import com.vocabapp.repository.VocabularyRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -13,13 +18,24 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class VocabularyService {
+    
+    @Value("${app.vocabulary.bulk-max-ids:1000}")
+    private int bulkMaxIds;
+    
     private final VocabularyRepository vocabularyRepository;
+    private final VocabularyProgressRepository progressRepository;
+    private final CollectionRepository collectionRepository;
     private final UserProgressService userProgressService;
+    private final DataVersionService dataVersionService;
+    private final ChangeFeedService changeFeedService;
+    private final OutboxService outboxService;
+    private final RatingService ratingService;
 
     // ========== USER-FILTERED METHODS (NEW) ==========
     
@@ -93,14 +109,42 @@ public class VocabularyService {
     
     @Transactional
     public Vocabulary createVocabulary(Vocabulary vocabulary, User user) {
+        boolean isNew = vocabulary.getId() == null;
         vocabulary.setUser(user);
-        return vocabularyRepository.save(vocabulary);
+        Vocabulary saved = vocabularyRepository.save(vocabulary);
+        if (isNew) {
+            userProgressService.adjustWordCounts(user, 1, Boolean.TRUE.equals(saved.getLearned()) ? 1 : 0);
+        }
+        bumpCollectionVersions(List.of(saved));
+        if (!saved.getCollections().isEmpty()) {
+            initializeProgress(List.of(saved.getId()));
+        }
+        dataVersionService.bump(user);
+        changeFeedService.recordVocabularies(user, List.of(saved.getId()), false);
+        if (!isNew || !saved.getCollections().isEmpty()) {
+            changeFeedService.recordMemberships(user, List.of(saved.getId()));
+        }
+        return saved;
     }
 
     @Transactional
     public List<Vocabulary> createVocabularies(List<Vocabulary> vocabularies, User user) {
         vocabularies.forEach(v -> v.setUser(user));
-        return vocabularyRepository.saveAll(vocabularies);
+        List<Vocabulary> saved = vocabularyRepository.saveAll(vocabularies);
+        int learned = (int) saved.stream().filter(v -> Boolean.TRUE.equals(v.getLearned())).count();
+        userProgressService.adjustWordCounts(user, saved.size(), learned);
+        bumpCollectionVersions(saved);
+        initializeProgress(saved.stream()
+                .filter(v -> !v.getCollections().isEmpty())
+                .map(Vocabulary::getId)
+                .toList());
+        dataVersionService.bump(user);
+        changeFeedService.recordVocabularies(user, saved.stream().map(Vocabulary::getId).toList(), false);
+        changeFeedService.recordMemberships(user, saved.stream()
+                .filter(v -> !v.getCollections().isEmpty())
+                .map(Vocabulary::getId)
+                .toList());
+        return saved;
     }
     
     @Transactional
@@ -123,7 +167,71 @@ public class VocabularyService {
         vocabulary.setCategory(vocabularyDetails.getCategory());
         vocabulary.setDifficulty(vocabularyDetails.getDifficulty());
         
-        return vocabularyRepository.save(vocabulary);
+        bumpCollectionVersions(List.of(vocabulary));
+        // Flushed now so the row lock is taken before the version lock, as on every other write path
+        Vocabulary saved = vocabularyRepository.saveAndFlush(vocabulary);
+        dataVersionService.bump(user);
+        changeFeedService.recordVocabularies(user, List.of(saved.getId()), false);
+        return saved;
+    }
+    
+    @Transactional
+    public Vocabulary markAsLearned(Long id, Boolean learned, User user) {
+        Vocabulary vocabulary = findOwned(id, user);
+    
+        boolean wasUnlearned = !Boolean.TRUE.equals(vocabulary.getLearned());
+        boolean changed = wasUnlearned == learned;
+        vocabulary.setLearned(learned);
+        vocabulary.setLastReviewedAt(LocalDateTime.now());
+        if (learned) {
+            vocabulary.setReviewCount(vocabulary.getReviewCount() + 1);
+        }
+    
+        bumpCollectionVersions(List.of(vocabulary));
+        Vocabulary saved = vocabularyRepository.saveAndFlush(vocabulary);
+        if (changed) {
+            userProgressService.adjustWordCounts(user, 0, learned ? 1 : -1);
+        }
+        dataVersionService.bump(user);
+        changeFeedService.recordVocabularies(user, List.of(id), false);
+        if (wasUnlearned && learned) {
+            outboxService.publish(new DomainEvent.WordLearned(user.getId(), id, 1));
+        }
+        return saved;
+    }
+    
+    @Transactional
+    public Vocabulary addToCollection(Long vocabularyId, Long collectionId, User user) {
+        Collection collection = collectionRepository.findByIdAndUser(collectionId, user)
+                .orElseThrow(() -> new RuntimeException("Collection not found or access denied"));
+        Vocabulary vocabulary = findOwned(vocabularyId, user);
+        if (vocabulary.getCollections().stream().anyMatch(c -> c.getId().equals(collectionId))) {
+            return vocabulary;
+        }
+    
+        collectionRepository.bumpContentVersions(List.of(collectionId));
+        vocabulary.getCollections().add(collection);
+        Vocabulary saved = vocabularyRepository.saveAndFlush(vocabulary);
+        initializeProgress(List.of(vocabularyId));
+        dataVersionService.bump(user);
+        changeFeedService.recordMemberships(user, List.of(vocabularyId));
+        return saved;
+    }
+    
+    @Transactional
+    public Vocabulary removeFromCollection(Long vocabularyId, Long collectionId, User user) {
+        requireOwnedCollection(collectionId, user);
+        Vocabulary vocabulary = findOwned(vocabularyId, user);
+        if (vocabulary.getCollections().stream().noneMatch(c -> c.getId().equals(collectionId))) {
+            return vocabulary;
+        }
+    
+        collectionRepository.bumpContentVersions(List.of(collectionId));
+        vocabulary.getCollections().removeIf(c -> c.getId().equals(collectionId));
+        Vocabulary saved = vocabularyRepository.saveAndFlush(vocabulary);
+        dataVersionService.bump(user);
+        changeFeedService.recordMemberships(user, List.of(vocabularyId));
+        return saved;
     }
     
     @Transactional
@@ -136,7 +244,128 @@ public class VocabularyService {
             throw new RuntimeException("Access denied");
         }
         
+        bumpCollectionVersions(List.of(vocabulary));
         vocabularyRepository.delete(vocabulary);
+        userProgressService.adjustWordCounts(user, -1, Boolean.TRUE.equals(vocabulary.getLearned()) ? -1 : 0);
+        dataVersionService.bump(user);
+        changeFeedService.recordVocabularies(user, List.of(id), true);
+        outboxService.publish(new DomainEvent.VocabularyDeleted(user.getId(), List.of(id)));
+    }
+    
+    /**
+     * Apply one action to many vocabularies with a single statement per table.
+     * Ids that do not belong to the user are silently ignored.
+     * Returns the number of affected vocabularies.
+     */
+    @Transactional
+    public int bulkUpdate(BulkVocabularyRequest request, User user) {
+        List<Long> ids = request.getIds().stream().distinct().toList();
+        if (ids.size() > bulkMaxIds) {
+            throw new RuntimeException("Too many ids: at most " + bulkMaxIds + " per request");
+        }
+    
+        // Collections the words belong to now, and the user's own ids; both read before deletes and membership removals
+        collectionRepository.bumpContentVersionsForVocabularies(user.getId(), ids);
+        List<Long> owned = vocabularyRepository.findOwnedIds(user.getId(), ids);
+        int affected = applyBulkAction(request, ids, user);
+        dataVersionService.bump(user);
+        switch (request.getAction()) {
+            case "addToCollection", "removeFromCollection" -> changeFeedService.recordMemberships(user, owned);
+            case "resetProgress" -> {
+                changeFeedService.recordVocabularies(user, owned, false);
+                if (!owned.isEmpty()) {
+                    changeFeedService.recordProgress(user, progressRepository.findIdsByVocabularyIds(user.getId(), owned));
+                }
+            }
+            case "delete" -> {
+                changeFeedService.recordVocabularies(user, owned, true);
+                if (affected > 0) {
+                    outboxService.publish(new DomainEvent.VocabularyDeleted(user.getId(), owned));
+                }
+            }
+            default -> changeFeedService.recordVocabularies(user, owned, false);
+        }
+        return affected;
+    }
+    
+    private int applyBulkAction(BulkVocabularyRequest request, List<Long> ids, User user) {
+        Long userId = user.getId();
+        switch (request.getAction()) {
+            case "markLearned": {
+                int learned = vocabularyRepository.markLearnedInBulk(userId, ids);
+                if (learned > 0) {
+                    userProgressService.adjustWordCounts(user, 0, learned);
+                    outboxService.publish(new DomainEvent.WordLearned(userId, null, learned));
+                }
+                return learned;
+            }
+            case "resetProgress": {
+                long wasLearned = vocabularyRepository.countLearnedInBulk(userId, ids);
+                progressRepository.resetByVocabularyIdsInBulk(userId, ids);
+                int reset = vocabularyRepository.resetProgressInBulk(userId, ids);
+                userProgressService.adjustWordCounts(user, 0, (int) -wasLearned);
+                return reset;
+            }
+            case "addToCollection":
+                requireOwnedCollection(request.getCollectionId(), user);
+                collectionRepository.bumpContentVersions(List.of(request.getCollectionId()));
+                int added = vocabularyRepository.addToCollectionInBulk(userId, ids, request.getCollectionId());
+                if (added > 0) {
+                    initializeProgress(ids);
+                }
+                return added;
+            case "removeFromCollection":
+                requireOwnedCollection(request.getCollectionId(), user);
+                return vocabularyRepository.removeFromCollectionInBulk(userId, ids, request.getCollectionId());
+            case "delete": {
+                long wasLearned = vocabularyRepository.countLearnedInBulk(userId, ids);
+                // Children first to satisfy the foreign keys
+                progressRepository.deleteByVocabularyIdsInBulk(userId, ids);
+                vocabularyRepository.deleteMembershipsInBulk(userId, ids);
+                int deleted = vocabularyRepository.deleteInBulk(userId, ids);
+                userProgressService.adjustWordCounts(user, -deleted, (int) -wasLearned);
+                return deleted;
+            }
+            default:
+                throw new RuntimeException("Unknown bulk action: " + request.getAction());
+        }
+    }
+    
+    private void bumpCollectionVersions(List<Vocabulary> vocabularies) {
+        List<Long> collectionIds = vocabularies.stream()
+                .flatMap(v -> v.getCollections().stream())
+                .map(Collection::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (!collectionIds.isEmpty()) {
+            collectionRepository.bumpContentVersions(collectionIds);
+        }
+    }
+    
+    // Seeds the progress rows of new memberships; flushes first because the insert reads vocabulary_collection
+    private void initializeProgress(List<Long> vocabularyIds) {
+        if (!vocabularyIds.isEmpty()) {
+            vocabularyRepository.flush();
+            progressRepository.initializeForVocabularies(vocabularyIds, ratingService.getInitialRating());
+        }
+    }
+    
+    private Vocabulary findOwned(Long id, User user) {
+        Vocabulary vocabulary = vocabularyRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Vocabulary not found"));
+        if (!vocabulary.getUser().getId().equals(user.getId())) {
+            throw new RuntimeException("Access denied");
+        }
+        return vocabulary;
+    }
+    
+    private void requireOwnedCollection(Long collectionId, User user) {
+        if (collectionId == null) {
+            throw new RuntimeException("collectionId is required for this action");
+        }
+        collectionRepository.findByIdAndUser(collectionId, user)
+                .orElseThrow(() -> new RuntimeException("Collection not found or access denied"));
     }
     
     public Long countLearnedWords(User user) {
@@ -246,71 +475,6 @@ public class VocabularyService {
         return vocabularyRepository.findByCollectionId(collectionId);
     }
 
-    // Create / Update / Delete
-    @Transactional
-    public Vocabulary createVocabulary(Vocabulary vocabulary) {
-        return vocabularyRepository.save(vocabulary);
-    }
-
-    @Transactional
-    public Vocabulary updateVocabulary(Long id, Vocabulary vocabularyDetails) {
-        Vocabulary vocabulary = vocabularyRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Vocabulary not found with id: " + id));
-        
-        // Track if learned status changed from false to true
-        boolean wasUnlearned = vocabulary.getLearned() == null || !vocabulary.getLearned();
-        boolean nowLearned = vocabularyDetails.getLearned() != null && vocabularyDetails.getLearned();
-        
-        vocabulary.setWord(vocabularyDetails.getWord());
-        vocabulary.setMeaning(vocabularyDetails.getMeaning());
-        vocabulary.setPhonetic(vocabularyDetails.getPhonetic());
-        vocabulary.setWordType(vocabularyDetails.getWordType());
-        vocabulary.setExample(vocabularyDetails.getExample());
-        vocabulary.setSynonym(vocabularyDetails.getSynonym());
-        vocabulary.setAntonym(vocabularyDetails.getAntonym());
-        vocabulary.setCategory(vocabularyDetails.getCategory());
-        vocabulary.setDifficulty(vocabularyDetails.getDifficulty());
-        vocabulary.setLearned(vocabularyDetails.getLearned());
-        vocabulary.setReviewCount(vocabularyDetails.getReviewCount());
-        vocabulary.setLastReviewedAt(vocabularyDetails.getLastReviewedAt());
-        vocabulary.setCollections(vocabularyDetails.getCollections());
-        
-        Vocabulary saved = vocabularyRepository.save(vocabulary);
-        
-        // Increment wordsLearnedToday if status changed to learned
-        if (wasUnlearned && nowLearned) {
-            userProgressService.incrementWordsLearnedToday(vocabulary.getUser());
-        }
-        
-        return saved;
-    }
-
-    @Transactional
-    public Vocabulary markAsLearned(Long id, Boolean learned) {
-        Vocabulary vocabulary = vocabularyRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Vocabulary not found"));
-        
-        boolean wasUnlearned = !vocabulary.getLearned();
-        vocabulary.setLearned(learned);
-        vocabulary.setLastReviewedAt(LocalDateTime.now());
-        if (learned) {
-            vocabulary.setReviewCount(vocabulary.getReviewCount() + 1);
-        }
-        
-        Vocabulary saved = vocabularyRepository.save(vocabulary);
-        
-        if (wasUnlearned && learned) {
-            userProgressService.incrementWordsLearnedToday(vocabulary.getUser());
-        }
-        
-        return saved;
-    }
-
-    @Transactional
-    public void deleteVocabulary(Long id) {
-        vocabularyRepository.deleteById(id);
-    }
-
     public Long getTotalCount() {
         return vocabularyRepository.count();
     }
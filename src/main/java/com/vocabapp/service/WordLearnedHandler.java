@@ -0,0 +1,34 @@
+package com.vocabapp.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts learned words toward the user's day: wordsLearnedToday, the streak, the activity
+ * calendar and the weekly leaderboard. One progress update per user per batch. The leaderboard
+ * increment only happens once the batch commits (see DomainEventHandler), so a batch that fails
+ * and is redelivered one event at a time counts each event once.
+ */
+@Component
+@RequiredArgsConstructor
+public class WordLearnedHandler implements DomainEventHandler<DomainEvent.WordLearned> {
+    
+    private final UserProgressService userProgressService;
+    
+    @Override
+    public Class<DomainEvent.WordLearned> eventType() {
+        return DomainEvent.WordLearned.class;
+    }
+    
+    @Override
+    public void handle(List<DomainEvent.WordLearned> events) {
+        // Ascending user ids, so concurrent dispatchers lock progress rows in the same order
+        Map<Long, Integer> counts = new TreeMap<>();
+        events.forEach(event -> counts.merge(event.userId(), event.count(), Integer::sum));
+        counts.forEach(userProgressService::recordWordsLearned);
+    }
+}
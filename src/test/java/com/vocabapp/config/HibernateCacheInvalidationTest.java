@@ -0,0 +1,185 @@
+package com.vocabapp.config;
+
+import com.vocabapp.model.Collection;
+import com.vocabapp.model.User;
+import com.vocabapp.repository.CollectionRepository;
+import com.vocabapp.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the second-level cache regions and the public-collection query cache never serve a
+ * row after it was changed or deleted, through either the entity or a native bulk statement.
+ * Needs a PostgreSQL database: run with SPRING_DATASOURCE_URL (and _USERNAME/_PASSWORD) set.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+class HibernateCacheInvalidationTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CollectionRepository collectionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long collectionId;
+
+    @BeforeEach
+    void createData() {
+        String name = "cache-test-" + UUID.randomUUID().toString().substring(0, 8);
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("x");
+        userId = userRepository.save(user).getId();
+
+        Collection collection = new Collection();
+        collection.setName(name);
+        collection.setUser(userRepository.getReferenceById(userId));
+        collectionId = collectionRepository.save(collection).getId();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void deleteData() {
+        jdbcTemplate.update("DELETE FROM collections WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_progress WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void collectionUpdateReplacesCachedEntry() {
+        loadCollection();
+        assertTrue(cached(Collection.class, collectionId));
+
+        transactionTemplate.executeWithoutResult(status ->
+                collectionRepository.findById(collectionId).orElseThrow().setName("renamed"));
+
+        assertEquals("renamed", loadCollection().getName());
+    }
+
+    @Test
+    void nativeContentVersionBumpEvictsCollection() {
+        long before = loadCollection().getContentVersion();
+        assertTrue(cached(Collection.class, collectionId));
+
+        transactionTemplate.executeWithoutResult(status -> collectionRepository.bumpContentVersions(List.of(collectionId)));
+
+        assertFalse(cached(Collection.class, collectionId));
+        assertEquals(before + 1, loadCollection().getContentVersion());
+    }
+
+    @Test
+    void metadataUpdateKeepsContentVersion() {
+        long before = loadCollection().getContentVersion();
+
+        transactionTemplate.executeWithoutResult(status ->
+                collectionRepository.findById(collectionId).orElseThrow().setDescription("changed"));
+
+        assertEquals(before, loadCollection().getContentVersion());
+    }
+
+    @Test
+    void deleteEvictsCollection() {
+        Collection collection = loadCollection();
+        assertTrue(cached(Collection.class, collectionId));
+
+        transactionTemplate.executeWithoutResult(status -> collectionRepository.delete(collection));
+
+        // READ_WRITE leaves an unreadable lock entry behind, so check that lookups no longer hit
+        long hits = statistics().getSecondLevelCacheHitCount();
+        assertTrue(collectionRepository.findById(collectionId).isEmpty());
+        assertEquals(hits, statistics().getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void nativeDeleteEvictsCollection() {
+        loadCollection();
+        assertTrue(cached(Collection.class, collectionId));
+
+        collectionRepository.deleteByIdInBulk(collectionId);
+
+        assertFalse(cached(Collection.class, collectionId));
+        assertTrue(collectionRepository.findById(collectionId).isEmpty());
+    }
+
+    @Test
+    void visibilityChangeInvalidatesPublicCollectionQuery() {
+        Statistics statistics = statistics();
+        assertFalse(publicIds().contains(collectionId));
+        long hits = statistics.getQueryCacheHitCount();
+        assertFalse(publicIds().contains(collectionId));
+        assertEquals(hits + 1, statistics.getQueryCacheHitCount());
+
+        transactionTemplate.executeWithoutResult(status ->
+                collectionRepository.findById(collectionId).orElseThrow().setIsPublic(true));
+
+        long misses = statistics.getQueryCacheMissCount();
+        assertTrue(publicIds().contains(collectionId));
+        assertEquals(misses + 1, statistics.getQueryCacheMissCount());
+    }
+
+    @Test
+    void userUpdateReplacesCachedEntry() {
+        userRepository.findById(userId).orElseThrow();
+        assertTrue(cached(User.class, userId));
+
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.findById(userId).orElseThrow().setTimezone("Europe/Berlin"));
+
+        assertEquals("Europe/Berlin", userRepository.findById(userId).orElseThrow().getTimezone());
+    }
+
+    @Test
+    void userDeleteEvictsUser() {
+        userRepository.findById(userId).orElseThrow();
+        jdbcTemplate.update("DELETE FROM collections WHERE user_id = ?", userId);
+
+        transactionTemplate.executeWithoutResult(status -> userRepository.deleteById(userId));
+
+        long hits = statistics().getSecondLevelCacheHitCount();
+        assertTrue(userRepository.findById(userId).isEmpty());
+        assertEquals(hits, statistics().getSecondLevelCacheHitCount());
+    }
+
+    private Collection loadCollection() {
+        return collectionRepository.findById(collectionId).orElseThrow();
+    }
+
+    private List<Long> publicIds() {
+        return collectionRepository.findByIsPublicTrue().stream().map(Collection::getId).toList();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private boolean cached(Class<?> type, Long id) {
+        return entityManagerFactory.getCache().contains(type, id);
+    }
+}
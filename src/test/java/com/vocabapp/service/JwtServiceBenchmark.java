@@ -0,0 +1,83 @@
+package com.vocabapp.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vocabapp.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a JWT: the old path (key and parser rebuilt, token parsed
+ * three times) against JwtService.verify on a cache miss and on a cache hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtServiceBenchmark {
+    
+    private static final String SECRET = "194eb5899f4031ac265cb27f72cdbbc4e33ca1aa8ba6195287037b4065567706";
+    
+    private JwtService cached;
+    private JwtService uncached;
+    private String token;
+    
+    @Setup
+    public void setup() {
+        cached = jwtService(10_000);
+        uncached = jwtService(0);
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("admin");
+        token = cached.generateToken(user);
+        cached.verify(token);
+    }
+    
+    @Benchmark
+    public boolean legacyThreeParses() {
+        // extractUsername in the filter, then extractUsername and extractExpiration in isTokenValid
+        String username = legacyClaims(token).getSubject();
+        boolean sameUser = username.equals(legacyClaims(token).getSubject());
+        return sameUser && !legacyClaims(token).getExpiration().before(new Date());
+    }
+    
+    @Benchmark
+    public Optional<VerifiedToken> verifyMiss() {
+        return uncached.verify(token);
+    }
+    
+    @Benchmark
+    public Optional<VerifiedToken> verifyHit() {
+        return cached.verify(token);
+    }
+    
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+    
+    private static JwtService jwtService(long verifiedCacheSize) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKey", SECRET);
+        ReflectionTestUtils.setField(service, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(service, "verifiedCacheSize", verifiedCacheSize);
+        ReflectionTestUtils.setField(service, "verifiedCacheTtl", Duration.ofMinutes(5));
+        service.init();
+        if (verifiedCacheSize == 0) {
+            // Evict on the calling thread, so every verify really is a miss
+            ReflectionTestUtils.setField(service, "verifiedTokens", Caffeine.newBuilder().maximumSize(0).executor(Runnable::run).build());
+        }
+        return service;
+    }
+}
@@ -0,0 +1,137 @@
+package com.vocabapp.service;
+
+import com.vocabapp.repository.LeaderboardSnapshotRepository;
+import com.vocabapp.repository.UserProgressRepository;
+import com.vocabapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Interleaves the weekly reset with a snapshot running on another scheduler thread and checks
+ * that the finished week's scores are only ever persisted under that week's start.
+ */
+class LeaderboardServiceTest {
+
+    private static final LocalDate FINISHED_WEEK = LocalDate.of(2020, 1, 6);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final ExecutorService threads = Executors.newFixedThreadPool(2);
+    // [weekStart, userId, score] of every persisted row, in write order
+    private final List<Object[]> persisted = new CopyOnWriteArrayList<>();
+
+    private LeaderboardService service;
+    private BlockingScoreSet weeklyWords;
+    private volatile CountDownLatch persistEntered = new CountDownLatch(0);
+    private volatile CountDownLatch persistRelease = new CountDownLatch(0);
+
+    @BeforeEach
+    void createService() {
+        service = new LeaderboardService(mock(UserProgressRepository.class), mock(LeaderboardSnapshotRepository.class),
+                mock(UserRepository.class), jdbcTemplate);
+        weeklyWords = new BlockingScoreSet();
+        ReflectionTestUtils.setField(service, "zone", "UTC");
+        ReflectionTestUtils.setField(service, "weekStart", FINISHED_WEEK);
+        ReflectionTestUtils.setField(service, "weeklyWords", weeklyWords);
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenAnswer(invocation -> {
+            CountDownLatch entered = persistEntered;
+            CountDownLatch release = persistRelease;
+            entered.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            for (SqlParameterSource row : (SqlParameterSource[]) invocation.getArgument(1)) {
+                persisted.add(new Object[]{row.getValue("weekStart"), row.getValue("userId"), row.getValue("score")});
+            }
+            return new int[0];
+        });
+    }
+
+    @AfterEach
+    void stopThreads() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void snapshotDuringResetNeverPersistsUnderTheNewWeek() throws Exception {
+        service.recordWordsLearned(1L, 5);
+        weeklyWords.blockNextDrain();
+
+        // The reset has moved weekStart on and stops just before draining the board
+        Future<?> reset = threads.submit(service::weeklyReset);
+        assertTrue(weeklyWords.drainEntered.await(5, TimeUnit.SECONDS));
+        Future<?> snapshot = threads.submit(service::snapshot);
+        assertThrows(TimeoutException.class, () -> snapshot.get(200, TimeUnit.MILLISECONDS));
+
+        weeklyWords.drainRelease.countDown();
+        reset.get(5, TimeUnit.SECONDS);
+        snapshot.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, persisted.size());
+        assertArrayEquals(new Object[]{FINISHED_WEEK, 1L, 5L}, persisted.get(0));
+        assertEquals(0, weeklyWords.size());
+    }
+
+    @Test
+    void resetDuringSnapshotKeepsTheFinalStandings() throws Exception {
+        service.recordWordsLearned(1L, 5);
+        persistEntered = new CountDownLatch(1);
+        persistRelease = new CountDownLatch(1);
+
+        // The snapshot has read the board and is writing it when more words are learned and the week closes
+        Future<?> snapshot = threads.submit(service::snapshot);
+        assertTrue(persistEntered.await(5, TimeUnit.SECONDS));
+        service.recordWordsLearned(1L, 2);
+        Future<?> reset = threads.submit(service::weeklyReset);
+        assertThrows(TimeoutException.class, () -> reset.get(200, TimeUnit.MILLISECONDS));
+
+        persistRelease.countDown();
+        snapshot.get(5, TimeUnit.SECONDS);
+        reset.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, persisted.size());
+        assertArrayEquals(new Object[]{FINISHED_WEEK, 1L, 5L}, persisted.get(0));
+        assertArrayEquals(new Object[]{FINISHED_WEEK, 1L, 7L}, persisted.get(1));
+    }
+
+    private static final class BlockingScoreSet extends RankedScoreSet {
+        final CountDownLatch drainEntered = new CountDownLatch(1);
+        final CountDownLatch drainRelease = new CountDownLatch(1);
+        private volatile boolean block;
+
+        void blockNextDrain() {
+            block = true;
+        }
+
+        @Override
+        public List<Entry> drain() {
+            if (block) {
+                block = false;
+                drainEntered.countDown();
+                try {
+                    assertTrue(drainRelease.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.drain();
+        }
+    }
+}